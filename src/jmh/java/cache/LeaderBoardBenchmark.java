@@ -0,0 +1,121 @@
+package cache;
+
+import git.RepoPageParser;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.redis.client.Request;
+import io.vertx.redis.client.Response;
+import io.vertx.redis.client.impl.types.BulkType;
+import io.vertx.redis.client.impl.types.MultiType;
+import model.LeaderBoardEntryItem;
+import model.LeaderBoardOutputItem;
+import model.RepoRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import utils.CustomViewsUtil;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static utils.ApiPathUtil.defaultOrg;
+import static utils.CustomViewsUtil.CUSTOM_VIEWS.last_updated;
+import static utils.CustomViewsUtil.CUSTOM_VIEWS.stars;
+
+/**
+ * Leaderboard rebuild (score extraction and ZADD diff on every repos refresh) and the /view/bottom/N read path
+ * (ZRANGE reply to rendered body). N = repos for reads, the worst case a client can ask for.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LeaderBoardBenchmark {
+
+    @Param({"200", "2000"})
+    private int repos;
+
+    private List<RepoRecord> snapshot;
+    private List<RepoRecord> changedSnapshot;
+    private LeaderBoardBuilder publishedBuilder;
+    private Response starsRange;
+    private Response lastUpdatedRange;
+
+    @Setup
+    public void setUp() {
+        final JsonArray fixtures = RepoFixtures.repos(repos);
+        final RepoPageParser parser = new RepoPageParser(true);
+        snapshot = parser.parseArray(fixtures.toBuffer());
+        for (int i = 0; i < fixtures.size(); i += 10) { // a refresh where one repo in ten gained a star
+            final JsonObject repo = fixtures.getJsonObject(i);
+            repo.put("stargazers_count", repo.getInteger("stargazers_count") + 1);
+        }
+        changedSnapshot = parser.parseArray(fixtures.toBuffer());
+        publishedBuilder = new LeaderBoardBuilder(defaultOrg());
+        publishedBuilder.diff(snapshot);
+        starsRange = zrangeWithScores(snapshot, stars);
+        lastUpdatedRange = zrangeWithScores(snapshot, last_updated);
+    }
+
+    @Benchmark
+    public void getLeaderBoardItem(Blackhole blackhole) {
+        for (RepoRecord repo : snapshot) {
+            blackhole.consume(LeaderBoardBuilder.getLeaderBoardItem(repo, last_updated, defaultOrg()));
+        }
+    }
+
+    @Benchmark
+    public List<Request> fullRebuild() {
+        return new LeaderBoardBuilder(defaultOrg()).diff(snapshot);
+    }
+
+    @Benchmark
+    public List<Request> incrementalRebuild() {
+        // alternates between the two snapshots so every call diffs one repo in ten
+        final List<Request> batch = publishedBuilder.diff(changedSnapshot);
+        publishedBuilder.diff(snapshot);
+        return batch;
+    }
+
+    @Benchmark
+    public String renderStarsView() {
+        return RedisClientManager.getAsList(stars, starsRange).toString();
+    }
+
+    @Benchmark
+    public String renderLastUpdatedView() {
+        return RedisClientManager.getAsList(last_updated, lastUpdatedRange).toString();
+    }
+
+    @Benchmark
+    public void leaderBoardOutputItemToString(Blackhole blackhole) {
+        for (LeaderBoardOutputItem item : RedisClientManager.getAsList(last_updated, lastUpdatedRange)) {
+            blackhole.consume(item.toString());
+        }
+    }
+
+    /*
+     * A RESP2 ZRANGE ... WITHSCORES reply: flat [member, score, ...], scores negated as LeaderBoardBuilder stores them.
+     */
+    private static Response zrangeWithScores(List<RepoRecord> repos, CustomViewsUtil.CUSTOM_VIEWS view) {
+        final MultiType reply = MultiType.create(repos.size() * 2L, false);
+        for (RepoRecord repo : repos) {
+            final LeaderBoardEntryItem item = LeaderBoardBuilder.getLeaderBoardItem(repo, view, defaultOrg());
+            reply.add(BulkType.create(Buffer.buffer(item.getKey()), false));
+            reply.add(BulkType.create(Buffer.buffer(item.getScore()), false));
+        }
+        return reply;
+    }
+}
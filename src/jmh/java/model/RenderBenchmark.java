@@ -0,0 +1,94 @@
+package model;
+
+import cache.RepoFixtures;
+import git.RepoPageParser;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import view.PagedCollection;
+import view.RepoColumnIndex;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What every repos refresh pays once to pre-render the cached body (parse, pretty print, gzip, ETag), compared with
+ * the raw JSON round trips it replaces and the single pass RepoPageParser, plus serving the body to a client without
+ * gzip and the view index rebuild.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+
+    @Param({"200", "2000"})
+    private int repos;
+
+    private JsonArray snapshot;
+    private String compactPayload;
+    private Buffer payloadBytes;
+    private List<RepoRecord> records;
+    private CachedResponse rendered;
+
+    @Setup
+    public void setUp() {
+        snapshot = RepoFixtures.repos(repos);
+        compactPayload = snapshot.encode();
+        payloadBytes = Buffer.buffer(compactPayload);
+        records = new RepoPageParser(true).parseArray(payloadBytes);
+        rendered = CachedResponse.ofJsonArray(snapshot);
+    }
+
+    @Benchmark
+    public String parseAndEncodePrettily() {
+        return new JsonArray(compactPayload).encodePrettily();
+    }
+
+    @Benchmark
+    public String encodePrettily() {
+        return snapshot.encodePrettily();
+    }
+
+    @Benchmark
+    public CachedResponse renderFromString() {
+        return CachedResponse.ofJsonArray(compactPayload);
+    }
+
+    @Benchmark
+    public CachedResponse renderFromJsonArray() {
+        return CachedResponse.ofJsonArray(snapshot);
+    }
+
+    @Benchmark
+    public CachedResponse renderFromRepoPageParser() {
+        return PagedCollection.of(new RepoPageParser(true).parseArray(payloadBytes)).getFull();
+    }
+
+    @Benchmark
+    public List<RepoRecord> repoPageParser() {
+        return new RepoPageParser(true).parseArray(payloadBytes);
+    }
+
+    @Benchmark
+    public Buffer gunzipBody() {
+        return rendered.getBody();
+    }
+
+    @Benchmark
+    public RepoColumnIndex buildColumnIndex() {
+        return RepoColumnIndex.build(records);
+    }
+}
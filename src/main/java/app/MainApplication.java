@@ -1,35 +1,62 @@
 package app;
 
+import cache.RedisClientManager;
+import git.GitClientManager;
+import io.vertx.config.ConfigRetriever;
+import io.vertx.config.ConfigRetrieverOptions;
+import io.vertx.config.ConfigStoreOptions;
 import io.vertx.core.Vertx;
-import org.springframework.beans.factory.annotation.Autowired;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.ComponentScan;
 import server.CachingService;
+import server.RequestRouteDispatcher;
+import utils.MetricsUtil;
 
 import javax.annotation.PostConstruct;
+import java.util.List;
+
+import static utils.DeploymentOptionsUtil.CONFIG_KEYS;
+import static utils.DeploymentOptionsUtil.cacheOptions;
+import static utils.DeploymentOptionsUtil.dispatcherOptions;
+import static utils.DeploymentOptionsUtil.gitOptions;
+import static utils.DeploymentOptionsUtil.httpOptions;
 
 @SpringBootApplication
 @ComponentScan("server")
 public class MainApplication {
 
-    @Autowired
-    private CachingService serverVerticle;
-
     public static void main(String[] args) {
         SpringApplication.run(MainApplication.class, args);
         System.out.println("Netflix Git Repo Caching App Started");
     }
 
+    /*
+     * Backends first (git, then redis which refreshes on start, then the dispatcher) so the HTTP verticle only opens
+     * its port once every address it talks to has a consumer.
+     */
     @PostConstruct
     public void deployVerticles() {
-        Vertx vertx = Vertx.vertx();
-        vertx.deployVerticle(serverVerticle, response -> {
-            if(response.succeeded()) {
-                System.out.println("Service Router Deployed");
-            } else {
-                System.out.println("Service Router Deployment Failed" + response.cause());
-            }
+        Vertx vertx = Vertx.vertx(new VertxOptions().setMetricsOptions(MetricsUtil.metricsOptions()));
+        ConfigStoreOptions env = new ConfigStoreOptions()
+                .setType("env")
+                .setConfig(new JsonObject().put("keys", new JsonArray(List.of(CONFIG_KEYS))));
+        ConfigRetriever.create(vertx, new ConfigRetrieverOptions().addStore(env)).getConfig().onComplete(config -> {
+            final JsonObject deploymentConfig = config.succeeded() && config.result() != null ? config.result() : new JsonObject();
+            vertx.deployVerticle(GitClientManager::new, gitOptions(deploymentConfig))
+                    .compose(id -> vertx.deployVerticle(RedisClientManager::new, cacheOptions(deploymentConfig)))
+                    .compose(id -> vertx.deployVerticle(RequestRouteDispatcher::new, dispatcherOptions(deploymentConfig)))
+                    .compose(id -> vertx.deployVerticle(CachingService::new, httpOptions(deploymentConfig)))
+                    .onComplete(response -> {
+                        if (response.succeeded()) {
+                            System.out.println("Service Router Deployed with " + httpOptions(deploymentConfig).getInstances() + " instance(s)");
+                        } else {
+                            System.out.println("Service Router Deployment Failed" + response.cause());
+                        }
+                    });
         });
     }
 }
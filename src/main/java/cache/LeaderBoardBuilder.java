@@ -0,0 +1,105 @@
+package cache;
+
+import io.vertx.redis.client.Command;
+import io.vertx.redis.client.Request;
+import model.LeaderBoardEntryItem;
+import model.RepoRecord;
+import utils.CustomViewsUtil;
+import utils.CustomViewsUtil.VIEW_COLUMNS;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * LeaderBoardBuilder keeps the last published score of every repo for each CUSTOM_VIEWS sorted set of one org and turns
+ * a fresh repo snapshot into the minimal set of ZADD / ZREM commands: only scores that changed and repos that disappeared.
+ * All commands of one rebuild are wrapped in a single MULTI/EXEC so they go to Redis as one pipelined batch.
+ * Scores are stored negated: Redis orders equal scores by ascending member, so the last N entries of a set are the
+ * bottom N ordered by descending value then ascending repo name, readable with a single ZRANGE -N -1.
+ * The first diff after a reset knows nothing of what is in Redis (e.g. written by a previous refresh leader), so it
+ * deletes every set before re-adding all scores, in the same MULTI/EXEC.
+ */
+public class LeaderBoardBuilder {
+
+    private static final CustomViewsUtil.CUSTOM_VIEWS[] VIEWS = CustomViewsUtil.CUSTOM_VIEWS.values();
+
+    private final String org;
+    private Map<String, String[]> publishedScores = new HashMap<>();
+
+    public LeaderBoardBuilder(String org) {
+        this.org = org;
+    }
+
+    public synchronized List<Request> diff(List<RepoRecord> repos) {
+        final boolean fullRebuild = publishedScores.isEmpty();
+        final Map<String, String[]> latestScores = new HashMap<>(repos.size() * 2);
+        final List<List<LeaderBoardEntryItem>> changedByView = new ArrayList<>(VIEWS.length);
+        Arrays.stream(VIEWS).forEach(view -> changedByView.add(new ArrayList<>()));
+
+        for (RepoRecord repo : repos) {
+            final String repoName = repo.getFullName();
+            final String[] scores = new String[VIEWS.length];
+            final String[] previous = publishedScores.get(repoName);
+            for (CustomViewsUtil.CUSTOM_VIEWS view : VIEWS) {
+                final LeaderBoardEntryItem item = getLeaderBoardItem(repo, view, org);
+                scores[view.ordinal()] = item.getScore();
+                if (previous == null || !previous[view.ordinal()].equals(item.getScore())) {
+                    changedByView.get(view.ordinal()).add(item);
+                }
+            }
+            latestScores.put(repoName, scores);
+        }
+
+        final Set<String> removed = new HashSet<>(publishedScores.keySet());
+        removed.removeAll(latestScores.keySet());
+        publishedScores = latestScores;
+
+        final List<Request> commands = new ArrayList<>();
+        for (CustomViewsUtil.CUSTOM_VIEWS view : VIEWS) {
+            if (fullRebuild) {
+                commands.add(Request.cmd(Command.DEL).arg(view.setKey(org)));
+            }
+            final List<LeaderBoardEntryItem> changed = changedByView.get(view.ordinal());
+            if (!changed.isEmpty()) {
+                final Request zadd = Request.cmd(Command.ZADD).arg(view.setKey(org));
+                changed.forEach(item -> zadd.arg(item.getScore()).arg(item.getKey()));
+                commands.add(zadd);
+            }
+            if (!removed.isEmpty()) {
+                final Request zrem = Request.cmd(Command.ZREM).arg(view.setKey(org));
+                removed.forEach(zrem::arg);
+                commands.add(zrem);
+            }
+        }
+        if (commands.isEmpty()) {
+            return commands;
+        }
+        commands.add(0, Request.cmd(Command.MULTI));
+        commands.add(Request.cmd(Command.EXEC));
+        return commands;
+    }
+
+    /**
+     * Forget what was published, the next diff re-sends every score (e.g. after a failed batch or a flushed Redis).
+     */
+    public synchronized void reset() {
+        publishedScores = new HashMap<>();
+    }
+
+    /**
+     * @return true if nothing is published, i.e. the sets are expected to be empty.
+     */
+    public synchronized boolean isEmpty() {
+        return publishedScores.isEmpty();
+    }
+
+    static LeaderBoardEntryItem getLeaderBoardItem(RepoRecord repo, CustomViewsUtil.CUSTOM_VIEWS custom_views, String org) {
+        final long score = repo.value(VIEW_COLUMNS.valueOf(custom_views.name()));
+        return LeaderBoardEntryItem.builder().key(repo.getFullName()).setName(custom_views.setKey(org)).score(String.valueOf(-score)).build();
+    }
+}
@@ -0,0 +1,208 @@
+package cache;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import model.CachedResponse;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
+
+/**
+ * LocalSnapshot keeps the latest rendered response of every refreshed path and periodically saves them to
+ * SNAPSHOT_PATH, so a restarted node serves straight away (from Redis, or from the snapshot while Redis misses) and
+ * defers its first refreshes instead of hitting git for everything at once.
+ * The file is written through a memory mapped temp file, forced to disk and atomically moved over the previous one:
+ * MAGIC, VERSION, savedAt, entry count, then per entry path, etag, lastModified and the gzipped body (each string and
+ * body length prefixed), and a CRC32 of everything before it. A missing, truncated or corrupt file loads as empty.
+ * One instance is shared by every verticle of a Vertx instance (through a local map), file I/O runs on worker threads.
+ */
+public class LocalSnapshot implements Shareable {
+
+    public static final String SNAPSHOT_PATH = "SNAPSHOT_PATH";
+    public static final String SNAPSHOT_INTERVAL_SECONDS = "SNAPSHOT_INTERVAL_SECONDS";
+    private static final String LOCAL_SNAPSHOT_MAP = "localSnapshot";
+    private static final String DEFAULT_SNAPSHOT_PATH = "cache.snapshot";
+    private static final long DEFAULT_INTERVAL_SECONDS = 60;
+    private static final int MAGIC = 0x4E464C58; // NFLX
+    private static final int VERSION = 1;
+
+    private final Path file;
+    private final long intervalSeconds;
+    private final Map<String, CachedResponse> entries = new ConcurrentHashMap<>();
+    private volatile boolean dirty;
+    private volatile long loadedSavedAt;
+    private Future<Map<String, CachedResponse>> loading;
+
+    LocalSnapshot(Path file, long intervalSeconds) {
+        this.file = file;
+        this.intervalSeconds = intervalSeconds;
+    }
+
+    public static LocalSnapshot get(Vertx vertx) {
+        LocalMap<String, LocalSnapshot> localMap = vertx.sharedData().getLocalMap(LOCAL_SNAPSHOT_MAP);
+        return localMap.computeIfAbsent(LOCAL_SNAPSHOT_MAP, key -> {
+            final String path = System.getenv(SNAPSHOT_PATH);
+            final String interval = System.getenv(SNAPSHOT_INTERVAL_SECONDS);
+            return new LocalSnapshot(path == null ? Paths.get(DEFAULT_SNAPSHOT_PATH) : path.isBlank() ? null : Paths.get(path),
+                    interval == null ? DEFAULT_INTERVAL_SECONDS : Long.parseLong(interval));
+        });
+    }
+
+    public boolean isEnabled() {
+        return file != null;
+    }
+
+    public long getIntervalSeconds() {
+        return intervalSeconds;
+    }
+
+    /**
+     * Reads the file once per Vertx instance, every caller shares the same result.
+     */
+    public synchronized Future<Map<String, CachedResponse>> load(Vertx vertx) {
+        if (loading == null) {
+            loading = !isEnabled() ? Future.succeededFuture(Collections.emptyMap()) : vertx.executeBlocking(promise -> {
+                final long start = System.currentTimeMillis();
+                final Map<String, CachedResponse> loaded = read(file);
+                loaded.forEach(entries::putIfAbsent);
+                System.out.println("Snapshot loaded " + loaded.size() + " entries from " + file + " in "
+                        + (System.currentTimeMillis() - start) + "ms");
+                promise.complete(loaded);
+            }, false);
+        }
+        return loading;
+    }
+
+    /**
+     * Millis since the loaded snapshot was saved, Long.MAX_VALUE if nothing was loaded.
+     */
+    public long loadedAgeMillis(long now) {
+        return loadedSavedAt == 0 ? Long.MAX_VALUE : Math.max(0, now - loadedSavedAt);
+    }
+
+    public CachedResponse get(String path) {
+        return entries.get(path);
+    }
+
+    public void record(String path, CachedResponse response) {
+        final CachedResponse previous = entries.put(path, response);
+        if (!response.sameContentAs(previous)) {
+            dirty = true;
+        }
+    }
+
+    /**
+     * Writes the current entries if any changed since the last save.
+     */
+    public Future<Void> saveIfDirty(Vertx vertx) {
+        if (!isEnabled() || !dirty) {
+            return Future.succeededFuture();
+        }
+        dirty = false;
+        final Map<String, CachedResponse> current = new LinkedHashMap<>(entries);
+        return vertx.<Void>executeBlocking(promise -> {
+            try {
+                write(file, current, System.currentTimeMillis());
+                promise.complete();
+            } catch (IOException e) {
+                promise.fail(e);
+            }
+        }, false).onFailure(t -> {
+            dirty = true;
+            System.out.println("Snapshot save failed " + t);
+        });
+    }
+
+    static void write(Path file, Map<String, CachedResponse> entries, long savedAt) throws IOException {
+        final Map<byte[], CachedResponse> encoded = new LinkedHashMap<>();
+        long size = 4 + 4 + 8 + 4 + 4;
+        for (Map.Entry<String, CachedResponse> entry : entries.entrySet()) {
+            final byte[] path = entry.getKey().getBytes(StandardCharsets.UTF_8);
+            encoded.put(path, entry.getValue());
+            size += 4 + path.length + 4 + entry.getValue().getEtag().getBytes(StandardCharsets.UTF_8).length + 8
+                    + 4 + entry.getValue().getGzipBody().length();
+        }
+        final Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(savedAt).putInt(encoded.size());
+            encoded.forEach((path, response) -> {
+                putBytes(buffer, path);
+                putBytes(buffer, response.getEtag().getBytes(StandardCharsets.UTF_8));
+                buffer.putLong(response.getLastModified());
+                putBytes(buffer, response.getGzipBody().getBytes());
+            });
+            buffer.putInt((int) crc(buffer, buffer.position()));
+            buffer.force();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    Map<String, CachedResponse> read(Path file) {
+        final Map<String, CachedResponse> loaded = new LinkedHashMap<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            final int crcOffset = buffer.limit() - 4;
+            if (crcOffset < 0 || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                    || (int) crc(buffer, crcOffset) != buffer.getInt(crcOffset)) {
+                System.out.println("Snapshot " + file + " is corrupt or from another version, ignoring it");
+                return loaded;
+            }
+            buffer.position(8);
+            final long savedAt = buffer.getLong();
+            final int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                final String path = new String(getBytes(buffer), StandardCharsets.UTF_8);
+                final String etag = new String(getBytes(buffer), StandardCharsets.UTF_8);
+                final long lastModified = buffer.getLong();
+                loaded.put(path, CachedResponse.restore(Buffer.buffer(getBytes(buffer)), etag, lastModified));
+            }
+            loadedSavedAt = savedAt;
+        } catch (NoSuchFileException e) {
+            System.out.println("No snapshot at " + file + ", starting cold");
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            System.out.println("Snapshot " + file + " unreadable, starting cold " + e);
+            loaded.clear();
+        }
+        return loaded;
+    }
+
+    private static long crc(ByteBuffer buffer, int length) {
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(0).limit(length));
+        return crc.getValue();
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer) {
+        final int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Snapshot entry length " + length + " out of bounds");
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,159 @@
+package cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.redis.client.Response;
+import model.CachedResponse;
+import utils.MetricsUtil;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * NearCache is a bounded, size-aware in-JVM L1 cache sitting in front of Redis for the cached and custom view routes.
+ * One instance is shared by every verticle of a Vertx instance (through a local map), entries are weighted by their
+ * rendered size and evicted LRU once NEAR_CACHE_MAX_WEIGHT is reached. Values are pre-rendered CachedResponse so the
+ * HTTP layer can send them without re-parsing.
+ * Writers publish the invalidated key on NEAR_CACHE_INVALIDATION_CHANNEL so other app nodes sharing the same Redis
+ * drop their stale copy, entries written by this node are tagged with nodeId and ignored on the way back.
+ * Every entry is fresh for NEAR_CACHE_FRESH_SECONDS (a safety net in case an invalidation message is lost). Views are
+ * gone after it, refreshed paths (put withFreshness) stay usable as stale for NEAR_CACHE_STALE_TTL more seconds so
+ * they can be served while they are reloaded, or while git fails.
+ */
+public class NearCache implements Shareable {
+
+    public static final String NEAR_CACHE_INVALIDATION_CHANNEL = "nearCacheInvalidation";
+    public static final String NEAR_CACHE_STALE_TTL = "NEAR_CACHE_STALE_TTL";
+    private static final String NEAR_CACHE_LOCAL_MAP = "nearCache";
+    private static final long NEAR_CACHE_MAX_WEIGHT = 64 * 1024 * 1024; // ~64MB of rendered bytes
+    private static final long NEAR_CACHE_FRESH_SECONDS = 60;
+    private static final long DEFAULT_STALE_TTL_SECONDS = 3600;
+    private static final long RELOAD_BACKOFF_MILLIS = 5000;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final long freshWindowMillis = TimeUnit.SECONDS.toMillis(NEAR_CACHE_FRESH_SECONDS);
+    private final long staleWindowMillis;
+    private final Cache<String, CachedResponse> cache;
+
+    NearCache(long maxWeight, long staleTtlSeconds) {
+        this.staleWindowMillis = TimeUnit.SECONDS.toMillis(staleTtlSeconds);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((String key, CachedResponse value) -> key.length() + value.weight())
+                .recordStats()
+                .build();
+        MetricsUtil.cacheGauges("near", this::stats, this::size);
+    }
+
+    public static NearCache get(Vertx vertx) {
+        LocalMap<String, NearCache> localMap = vertx.sharedData().getLocalMap(NEAR_CACHE_LOCAL_MAP);
+        return localMap.computeIfAbsent(NEAR_CACHE_LOCAL_MAP, key -> {
+            final String staleTtl = System.getenv(NEAR_CACHE_STALE_TTL);
+            return new NearCache(NEAR_CACHE_MAX_WEIGHT,
+                    staleTtl == null || staleTtl.isBlank() ? DEFAULT_STALE_TTL_SECONDS : Long.parseLong(staleTtl.trim()));
+        });
+    }
+
+    /**
+     * @return the cached response, fresh or stale, or null if missing or past staleUntil.
+     */
+    public CachedResponse get(String key) {
+        final CachedResponse cached = cache.getIfPresent(key);
+        if (cached == null) {
+            return null;
+        }
+        if (!cached.isUsable(System.currentTimeMillis())) {
+            cache.asMap().remove(key, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Unchanged content keeps the already cached ETag and Last-Modified, so they stay stable across refreshes, with
+     * the freshness window of value. A value without one is fresh for NEAR_CACHE_FRESH_SECONDS, never stale.
+     * @return true if the value differs from the one already cached, i.e. other nodes should be told to invalidate.
+     */
+    public boolean put(String key, CachedResponse value) {
+        final CachedResponse previous = cache.getIfPresent(key);
+        final long now = System.currentTimeMillis();
+        final CachedResponse windowed = value.getStaleUntil() != Long.MAX_VALUE ? value :
+                value.withFreshness(now + freshWindowMillis, now + freshWindowMillis);
+        final boolean changed = !windowed.sameContentAs(previous);
+        cache.put(key, changed ? windowed : previous.withFreshness(windowed.getFreshUntil(), windowed.getStaleUntil()));
+        return changed;
+    }
+
+    /**
+     * Freshness window of a refreshed path just read or fetched: fresh for NEAR_CACHE_FRESH_SECONDS, then stale.
+     */
+    public CachedResponse withFreshness(CachedResponse response) {
+        final long now = System.currentTimeMillis();
+        return response.withFreshness(now + freshWindowMillis, now + freshWindowMillis + staleWindowMillis);
+    }
+
+    /**
+     * A failed reload keeps serving the stale copy: a full stale window from now, retried after a short backoff.
+     */
+    public CachedResponse extendStaleness(CachedResponse stale) {
+        final long now = System.currentTimeMillis();
+        return stale.withFreshness(now + RELOAD_BACKOFF_MILLIS, now + staleWindowMillis);
+    }
+
+    public void invalidate(String key) {
+        cache.invalidate(key);
+    }
+
+    public void invalidatePrefix(String prefix) {
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public String invalidationMessage(String key) {
+        return nodeId + " " + key;
+    }
+
+    /**
+     * Handles a pub/sub push of the form [message, channel, "nodeId key"], prefix keys ending with '*' drop a whole
+     * family (e.g. every custom view) at once.
+     * @return the key invalidated by another node, null if the push was not one.
+     */
+    public String handleInvalidationMessage(Response response) {
+        if (response == null || response.size() != 3 || !"message".equals(response.get(0).toString())
+                || !NEAR_CACHE_INVALIDATION_CHANNEL.equals(response.get(1).toString())) {
+            return null;
+        }
+        final String payload = response.get(2).toString();
+        final int separator = payload.indexOf(' ');
+        if (separator < 0 || payload.substring(0, separator).equals(nodeId)) {
+            return null;
+        }
+        final String key = payload.substring(separator + 1);
+        if (key.endsWith("*")) {
+            invalidatePrefix(key.substring(0, key.length() - 1));
+        } else {
+            invalidate(key);
+        }
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        return "NearCache{size=" + cache.size() + ", " + cache.stats() + "}";
+    }
+}
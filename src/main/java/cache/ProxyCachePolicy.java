@@ -0,0 +1,107 @@
+package cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ProxyCachePolicy decides how long a proxied GitHub path may be cached.
+ * Rules are comma separated path patterns with a TTL in seconds, first match wins, e.g.
+ * "/repos/**=300,/users/*=3600,/search/**=0": '*' matches one path segment, '**' any number of them and a 0 TTL
+ * disables caching. Unmatched paths use the default TTL.
+ * Upstream Cache-Control is honored on top: no-store / no-cache are never cached and s-maxage / max-age cap the TTL.
+ * "private" is ignored, every client of this proxy shares the single upstream identity (GITHUB_API_TOKEN).
+ */
+public class ProxyCachePolicy {
+
+    private static final Pattern MAX_AGE = Pattern.compile("(?:^|[,\\s])(s-maxage|max-age)\\s*=\\s*(\\d+)");
+
+    private final List<Rule> rules;
+    private final long defaultTtlSeconds;
+
+    private ProxyCachePolicy(List<Rule> rules, long defaultTtlSeconds) {
+        this.rules = rules;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+    }
+
+    /**
+     * @throws IllegalArgumentException on a rule without '=' or a TTL that is not a number.
+     */
+    public static ProxyCachePolicy parse(String rules, long defaultTtlSeconds) {
+        final List<Rule> parsed = new ArrayList<>();
+        if (rules != null && !rules.isBlank()) {
+            for (String rule : rules.split(",")) {
+                final int separator = rule.lastIndexOf('=');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Proxy cache rule without TTL " + rule);
+                }
+                parsed.add(new Rule(toRegex(rule.substring(0, separator).trim()),
+                        Long.parseLong(rule.substring(separator + 1).trim())));
+            }
+        }
+        return new ProxyCachePolicy(parsed, defaultTtlSeconds);
+    }
+
+    /**
+     * @return the TTL configured for path, before looking at the upstream response.
+     */
+    public long ttlSeconds(String path) {
+        final String pathOnly = path.indexOf('?') < 0 ? path : path.substring(0, path.indexOf('?'));
+        for (Rule rule : rules) {
+            if (rule.pattern.matcher(pathOnly).matches()) {
+                return rule.ttlSeconds;
+            }
+        }
+        return defaultTtlSeconds;
+    }
+
+    /**
+     * @return the TTL an upstream response for path may be cached for, 0 when it must not be cached.
+     */
+    public long ttlSeconds(String path, String cacheControl) {
+        final long ttl = ttlSeconds(path);
+        if (ttl <= 0 || cacheControl == null) {
+            return Math.max(0, ttl);
+        }
+        final String directives = cacheControl.toLowerCase();
+        if (directives.contains("no-store") || directives.contains("no-cache")) {
+            return 0;
+        }
+        long maxAge = -1;
+        final Matcher matcher = MAX_AGE.matcher(directives);
+        while (matcher.find()) {
+            // s-maxage applies to shared caches and wins over max-age
+            if (matcher.group(1).equals("s-maxage") || maxAge < 0) {
+                maxAge = Long.parseLong(matcher.group(2));
+            }
+        }
+        return maxAge < 0 ? ttl : Math.min(ttl, maxAge);
+    }
+
+    private static Pattern toRegex(String glob) {
+        final StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            final char c = glob.charAt(i);
+            if (c == '*' && i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+                regex.append(".*");
+                i++;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static class Rule {
+        private final Pattern pattern;
+        private final long ttlSeconds;
+
+        private Rule(Pattern pattern, long ttlSeconds) {
+            this.pattern = pattern;
+            this.ttlSeconds = ttlSeconds;
+        }
+    }
+}
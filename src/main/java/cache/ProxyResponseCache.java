@@ -0,0 +1,128 @@
+package cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import model.CachedResponse;
+import utils.MetricsUtil;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ProxyResponseCache is the optional in-process tier of the proxied path cache, Redis (a PROXY_KEY_PREFIX + path hash
+ * expiring at staleUntil) being the shared one. Entries are fresh for the ProxyCachePolicy TTL, then stay usable as
+ * stale for PROXY_CACHE_STALE_TTL more seconds while they get revalidated. They are dropped past staleUntil and
+ * evicted LRU once PROXY_CACHE_LOCAL_MAX_BYTES is reached (0 disables the tier).
+ * A path is only admitted on its second sighting within the doorkeeper window, so one-off lookups never push hot
+ * entries out; bodies larger than 1/16 of the budget are never admitted.
+ * One instance is shared by every verticle of a Vertx instance (through a local map).
+ */
+public class ProxyResponseCache implements Shareable {
+
+    public static final String PROXY_KEY_PREFIX = "proxy:";
+    public static final String PROXY_CACHE_TTLS = "PROXY_CACHE_TTLS";
+    public static final String PROXY_CACHE_DEFAULT_TTL = "PROXY_CACHE_DEFAULT_TTL";
+    public static final String PROXY_CACHE_LOCAL_MAX_BYTES = "PROXY_CACHE_LOCAL_MAX_BYTES";
+    public static final String PROXY_CACHE_STALE_TTL = "PROXY_CACHE_STALE_TTL";
+    private static final String PROXY_CACHE_LOCAL_MAP = "proxyResponseCache";
+    private static final long DEFAULT_TTL_SECONDS = 60;
+    private static final long DEFAULT_LOCAL_MAX_BYTES = 16 * 1024 * 1024;
+    private static final long DEFAULT_STALE_TTL_SECONDS = 600;
+    private static final long REVALIDATE_BACKOFF_MILLIS = 5000;
+    private static final long DOORKEEPER_SIZE = 10_000;
+    private static final long DOORKEEPER_WINDOW_SECONDS = 600;
+
+    private final ProxyCachePolicy policy;
+    private final long staleWindowMillis;
+    private final long maxEntryBytes;
+    private final Cache<String, CachedResponse> local;
+    private final Cache<String, Boolean> doorkeeper;
+
+    ProxyResponseCache(ProxyCachePolicy policy, long staleTtlSeconds, long localMaxBytes) {
+        this.policy = policy;
+        this.staleWindowMillis = TimeUnit.SECONDS.toMillis(staleTtlSeconds);
+        this.maxEntryBytes = localMaxBytes / 16;
+        this.local = CacheBuilder.newBuilder()
+                .maximumWeight(Math.max(0, localMaxBytes))
+                .weigher((String key, CachedResponse value) -> key.length() + value.weight())
+                .recordStats()
+                .build();
+        this.doorkeeper = CacheBuilder.newBuilder()
+                .maximumSize(DOORKEEPER_SIZE)
+                .expireAfterWrite(DOORKEEPER_WINDOW_SECONDS, TimeUnit.SECONDS)
+                .build();
+        MetricsUtil.cacheGauges("proxy", this::stats, this::size);
+    }
+
+    public static ProxyResponseCache get(Vertx vertx) {
+        LocalMap<String, ProxyResponseCache> localMap = vertx.sharedData().getLocalMap(PROXY_CACHE_LOCAL_MAP);
+        return localMap.computeIfAbsent(PROXY_CACHE_LOCAL_MAP, key -> new ProxyResponseCache(
+                ProxyCachePolicy.parse(System.getenv(PROXY_CACHE_TTLS), envLong(PROXY_CACHE_DEFAULT_TTL, DEFAULT_TTL_SECONDS)),
+                envLong(PROXY_CACHE_STALE_TTL, DEFAULT_STALE_TTL_SECONDS),
+                envLong(PROXY_CACHE_LOCAL_MAX_BYTES, DEFAULT_LOCAL_MAX_BYTES)));
+    }
+
+    public ProxyCachePolicy policy() {
+        return policy;
+    }
+
+    /**
+     * @return the cached response, fresh or stale, or null if missing or past staleUntil.
+     */
+    public CachedResponse get(String path) {
+        final CachedResponse cached = local.getIfPresent(path);
+        if (cached == null) {
+            return null;
+        }
+        if (!cached.isUsable(System.currentTimeMillis())) {
+            local.asMap().remove(path, cached);
+            return null;
+        }
+        return cached;
+    }
+
+    /**
+     * Offers a response read from (or just written to) Redis, carrying its freshness window.
+     */
+    public void offer(String path, CachedResponse response) {
+        if (!response.isUsable(System.currentTimeMillis()) || maxEntryBytes <= 0 || response.weight() > maxEntryBytes) {
+            return;
+        }
+        if (doorkeeper.asMap().putIfAbsent(path, Boolean.TRUE) == null) {
+            return;
+        }
+        local.put(path, response);
+    }
+
+    /**
+     * Freshness window of a response just fetched for path.
+     */
+    public CachedResponse withFreshness(CachedResponse response, long ttlSeconds) {
+        final long freshUntil = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds);
+        return response.withFreshness(freshUntil, freshUntil + staleWindowMillis);
+    }
+
+    /**
+     * A failed revalidation keeps serving the stale copy: a full stale window from now, retried after a short backoff.
+     */
+    public CachedResponse extendStaleness(CachedResponse stale) {
+        final long now = System.currentTimeMillis();
+        return stale.withFreshness(now + REVALIDATE_BACKOFF_MILLIS, now + staleWindowMillis);
+    }
+
+    public CacheStats stats() {
+        return local.stats();
+    }
+
+    public long size() {
+        return local.size();
+    }
+
+    private static long envLong(String key, long defaultValue) {
+        final String value = System.getenv(key);
+        return value == null || value.isBlank() ? defaultValue : Long.parseLong(value.trim());
+    }
+}
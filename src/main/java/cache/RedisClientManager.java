@@ -1,42 +1,73 @@
 package cache;
 
+import com.codahale.metrics.Timer;
+import io.vertx.config.ConfigRetriever;
+import io.vertx.config.ConfigRetrieverOptions;
+import io.vertx.config.ConfigStoreOptions;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Promise;
+import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.eventbus.Message;
+import git.RateLimitState;
+import git.RepoPageParser;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.redis.client.Command;
 import io.vertx.redis.client.Redis;
 import io.vertx.redis.client.RedisAPI;
 import io.vertx.redis.client.RedisOptions;
+import io.vertx.redis.client.Request;
 import io.vertx.redis.client.Response;
-import model.LeaderBoardEntryItem;
+import io.vertx.redis.client.ResponseType;
+import model.CachedResponse;
 import model.LeaderBoardOutputItem;
+import model.RepoRecord;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import utils.ApiPathUtil;
 import utils.CustomViewsUtil;
+import utils.LocalReferenceCodec;
+import utils.MetricsUtil;
+import view.PagedCollection;
+import view.PagedCollections;
+import view.RepoViewEngine;
+import view.ViewQuery;
 
-import java.awt.event.ItemEvent;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
+import static cache.NearCache.NEAR_CACHE_INVALIDATION_CHANNEL;
+import static cache.ProxyResponseCache.PROXY_KEY_PREFIX;
+import static git.GitClientManager.CACHE_CONTROL_HEADER;
+import static git.GitClientManager.CONDITIONAL_HEADER;
 import static git.GitClientManager.GITHUB_EVENT_ADDRESS;
-import static utils.ApiPathUtil.PROXY_PATH_PAGINATED_REFRESH.PATH_ORG_NETFLIX_MEMBERS;
-import static utils.ApiPathUtil.PROXY_PATH_PAGINATED_REFRESH.PATH_ORG_NETFLIX_REPOS;
+import static git.GitClientManager.GITHUB_PAGINATED_EVENT_ADDRESS;
+import static git.GitClientManager.STATUS_HEADER;
+import static utils.ApiPathUtil.PROXY_PATH_PAGINATED_REFRESH.PATH_ORG_REPOS;
 import static utils.CustomViewsUtil.CUSTOM_VIEWS.last_updated;
 
 /*
 RedisClientManager is a worker verticle with its own dedicated worker thread pool, which will listen to event bus
- * only for REDIS_MAP_EVENT_ADDRESS and REDIS_RANK_EVENT_ADDRESS.
- * REDIS_MAP_EVENT_ADDRESS is for KEY based look up in redis.
- * REDIS_RANK_EVENT_ADDRESS is for ZRANGE based sorted set lookup in redis.
- * This worker verticle will also periodically refresh cache for both KEYS and SET lookup.
+ * for the cached paths (REDIS_MAP_EVENT_ADDRESS for KEY, REDIS_SET_EVENT_ADDRESS for collection look up), the custom
+ * views (REDIS_RANK_EVENT_ADDRESS / REDIS_RANK_BATCH_EVENT_ADDRESS, ZRANGE based sorted set lookup) and any other
+ * proxied path (REDIS_PROXY_EVENT_ADDRESS), all served from redis behind the in-JVM NearCache.
+ * This worker verticle will also periodically refresh the cached paths of the orgs (ORGS) hashing to its shard.
  * This worker verticle also publish event to git-client-manager if any git api query invocation required.
  */
 @Component
@@ -46,254 +77,805 @@ public class RedisClientManager extends AbstractVerticle {
     public static final String REDIS_MAP_EVENT_ADDRESS = "redisMap";
     public static final String REDIS_SET_EVENT_ADDRESS = "redisSet";
     public static final String REDIS_RANK_EVENT_ADDRESS = "redisRank";
-    AtomicBoolean leaderBoardReady = new AtomicBoolean(Boolean.FALSE);
+    public static final String REDIS_RANK_BATCH_EVENT_ADDRESS = "redisRankBatch";
+    public static final String REDIS_PROXY_EVENT_ADDRESS = "redisProxy";
+    // + org, local consumer of the org's refresh worker, told when the org's sorted sets are missing
+    private static final String LEADER_BOARD_MISSING_ADDRESS = "leaderBoardMissing:";
+    private static final String GENERATION_SUFFIX = ":gen:";
+    private static final String PROXY_BODY_FIELD = "body";
+    private static final String PROXY_ETAG_FIELD = "etag";
+    private static final String PROXY_LAST_MODIFIED_FIELD = "lastModified";
+    private static final String PROXY_FRESH_UNTIL_FIELD = "freshUntil";
+    private static final String PROXY_STALE_UNTIL_FIELD = "staleUntil";
+    private static final String VIEW_KEY_PREFIX = "/view/";
+    private static final String REFRESH_OWNER_MAP = "redisClientManager";
+    private static final String REFRESH_SHARD_KEY = "refreshShard";
+    private static final String MISS_FETCHES = "missFetches";
+    public static final String REDIS_URL = "REDIS_URL";
+    public static final String REFRESH_LEASE_MILLIS = "REFRESH_LEASE_MILLIS";
+    private static final String DEFAULT_REDIS_URL = "redis://localhost:6379";
+    public static final String REDIS_MAX_POOL_SIZE = "REDIS_MAX_POOL_SIZE";
+    public static final String REDIS_MAX_POOL_WAITING = "REDIS_MAX_POOL_WAITING";
+    private static final int DEFAULT_MAX_POOL_SIZE = 10;
+    // every command holds a pooled connection until its reply, bursts above size + waiting fail instead of queueing
+    private static final int DEFAULT_MAX_POOL_WAITING = 256;
+    private static final long DEFAULT_LEASE_MILLIS = 10_000;
+    private int shard;
+    private RedisOptions redisOptions;
+    private NearCache nearCache;
+    private PagedCollections pagedCollections;
+    private ProxyResponseCache proxyResponseCache;
+    private Redis redisClient;
+    // only the orgs this instance is the refresh worker of
+    private final Map<String, OrgState> orgStates = new ConcurrentHashMap<>();
+    // every value goes through it (gzip by default): compact JSON, compressed, as binary Redis args
+    private final StorageCodec storageCodec = StorageCodec.fromEnv();
+    private final RepoPageParser repoPageParser = new RepoPageParser(CachedResponse.isPrettyPrint());
+    // concurrent misses of a path, on any instance, share one git fetch and one redis write
+    private SingleFlight<CachedResponse> missFetches;
+    private LocalSnapshot snapshot;
 
     @Override
-    public void start() {
-        vertx.eventBus().<String>consumer(REDIS_MAP_EVENT_ADDRESS).handler(handleRedisGETJsonRequest());
-        vertx.eventBus().<String>consumer(REDIS_SET_EVENT_ADDRESS).handler(handleRedisGETArrayNodeRequest());
-        vertx.eventBus().<String>consumer(REDIS_RANK_EVENT_ADDRESS).handler(handleRedisRankRequest());
-        vertx.setPeriodic(5000, id -> handleRedisRefreshTask()); //refresh every 5 sec
-
-        Redis client = Redis.createClient(vertx, new RedisOptions()
-                .setMaxPoolSize(10)
-                .setMaxWaitingHandlers(50));
-        redisAPI = RedisAPI.api(client);
-        redisAPI.flushall(List.of("SYNC"));
-        handleRedisRefreshTask();
-    }
-
-    private void handleRedisRefreshTask() {
-        System.out.println("Refresh Timer fired!");
-        Arrays.stream(ApiPathUtil.PROXY_PATH_REFRESH.values()).map(path -> path.value).forEach(this::getAndSetInCacheAsKey);
-        Arrays.stream(ApiPathUtil.PROXY_PATH_PAGINATED_REFRESH.values()).map(path -> path.value).forEach(pathName -> getAndSetInCacheAsSet(pathName, pathName));
-    }
-
-    private void updateBottomNRankedItem() {
-        System.out.println("Updating Leaderboard");
-        redisAPI
-                .smembers(PATH_ORG_NETFLIX_REPOS.value)
-                .onFailure(t -> System.out.println("Redis GET Response failed " + t))
-                .onSuccess(message -> {
-                    if (message == null) {
-                        System.out.println("Missing in cache, getting leaderboard ready in a moment");
-                    } else {
-                        final JsonArray array = new JsonArray(message.toString());
-                        Arrays.stream(CustomViewsUtil.CUSTOM_VIEWS.values()).iterator().forEachRemaining(custom_views -> {
-                            List<String> list = new ArrayList<>();
-                            list.add(0, custom_views.setName);
-                            for (int i = 0; i < array.size(); i++) {
-                                JsonObject jsonObject = array.getJsonObject(i);
-                                list.add(getLeaderBoardItem(jsonObject, custom_views).getScore());
-                                list.add(getLeaderBoardItem(jsonObject, custom_views).getKey());
-                            }
-                            redisAPI.zadd(list)
-                                    .onFailure(t -> {
-                                        System.out.println("Redis refresh zadd Response failed " + t);
-                                    });
-                        });
+    public void start(Promise<Void> startPromise) {
+        nearCache = NearCache.get(vertx);
+        pagedCollections = PagedCollections.get(vertx);
+        proxyResponseCache = ProxyResponseCache.get(vertx);
+        snapshot = LocalSnapshot.get(vertx);
+        missFetches = SingleFlight.get(vertx, MISS_FETCHES);
+        LocalReferenceCodec.register(vertx, CachedResponse.class);
+        ConfigStoreOptions env = new ConfigStoreOptions()
+                .setType("env")
+                .setConfig(new JsonObject().put("keys", new JsonArray().add(REDIS_URL).add(REFRESH_LEASE_MILLIS)
+                        .add(REDIS_MAX_POOL_SIZE).add(REDIS_MAX_POOL_WAITING)));
+        // the deployment config first, env overrides it
+        ConfigStoreOptions deployment = new ConfigStoreOptions().setType("json").setConfig(config());
+        ConfigRetriever.create(vertx, new ConfigRetrieverOptions().addStore(deployment).addStore(env)).getConfig().onComplete(config -> {
+            final JsonObject result = config.succeeded() && config.result() != null ? config.result() : new JsonObject();
+            redisOptions = new RedisOptions()
+                    .setConnectionString(result.getString(REDIS_URL, DEFAULT_REDIS_URL));
+            redisClient = Redis.createClient(vertx, new RedisOptions(redisOptions)
+                    .setMaxPoolSize(result.getInteger(REDIS_MAX_POOL_SIZE, DEFAULT_MAX_POOL_SIZE))
+                    .setMaxPoolWaiting(result.getInteger(REDIS_MAX_POOL_WAITING, DEFAULT_MAX_POOL_WAITING))
+                    .setMaxWaitingHandlers(50));
+            redisAPI = RedisAPI.api(redisClient);
+            vertx.eventBus().<String>consumer(REDIS_MAP_EVENT_ADDRESS).handler(handleRedisGETJsonRequest());
+            vertx.eventBus().<String>consumer(REDIS_SET_EVENT_ADDRESS).handler(handleRedisGETArrayNodeRequest());
+            vertx.eventBus().<String>consumer(REDIS_RANK_EVENT_ADDRESS).handler(handleRedisRankRequest());
+            vertx.eventBus().<String>consumer(REDIS_RANK_BATCH_EVENT_ADDRESS).handler(handleRedisRankBatchRequest());
+            vertx.eventBus().<String>consumer(REDIS_PROXY_EVENT_ADDRESS).handler(handleRedisProxyRequest());
+            // shard 0 also subscribes to invalidations and keeps the snapshot, both shared by every instance
+            final int shards = context.getInstanceCount();
+            shard = vertx.sharedData().<String, Integer>getLocalMap(REFRESH_OWNER_MAP)
+                    .compute(REFRESH_SHARD_KEY, (key, claimed) -> claimed == null ? 0 : claimed + 1) % shards;
+            if (shard == 0) {
+                subscribeToNearCacheInvalidation();
+            }
+            final long leaseMillis = result.getLong(REFRESH_LEASE_MILLIS, DEFAULT_LEASE_MILLIS);
+            ApiPathUtil.orgs().stream().filter(org -> Math.floorMod(org.hashCode(), shards) == shard)
+                    .forEach(org -> addRefreshWorker(org, leaseMillis));
+            System.out.println("Refresh shard " + shard + "/" + shards + " refreshes "
+                    + orgStates.size() + " org(s)");
+            // the HTTP verticle is deployed after this one completes, so it only opens once the snapshot is loaded
+            snapshot.load(vertx).onComplete(loaded -> {
+                final Map<String, CachedResponse> entries = loaded.succeeded() ? loaded.result() : Map.of();
+                if (shard == 0) {
+                    warmFromSnapshot(entries);
+                }
+                deferRefreshesFromSnapshot(entries);
+                orgStates.values().forEach(state -> state.leaderElection.start());
+                startPromise.complete();
+            });
+        });
+    }
+
+    /*
+     * Every refreshed path of org goes on the org's own scheduler, paced with every path of every org since they all
+     * share the GitHub token. Paths without an org (e.g. /) are refreshed with the first org.
+     */
+    private void addRefreshWorker(String org, long leaseMillis) {
+        final OrgState state = new OrgState(org);
+        orgStates.put(org, state);
+        state.refreshScheduler = new RefreshScheduler(vertx, RateLimitState.get(vertx), ApiPathUtil.refreshedPathCount());
+        Arrays.stream(ApiPathUtil.PROXY_PATH_REFRESH.values()).forEach(path -> path.paths().stream()
+                .filter(value -> org.equals(refreshingOrg(value)))
+                .forEach(value -> state.refreshScheduler.add(value, TimeUnit.SECONDS.toMillis(path.refreshSeconds),
+                        () -> getAndSetInCacheAsKey(value).map(Objects::nonNull))));
+        Arrays.stream(ApiPathUtil.PROXY_PATH_PAGINATED_REFRESH.values()).forEach(path -> path.paths().stream()
+                .filter(value -> org.equals(refreshingOrg(value)))
+                .forEach(value -> state.refreshScheduler.add(value, TimeUnit.SECONDS.toMillis(path.refreshSeconds),
+                        () -> getAndSetInCacheAsSet(value).map(Objects::nonNull))));
+        state.leaderElection = new RefreshLeaderElection(vertx, redisAPI, RefreshLeaderElection.leaderKey(org),
+                nearCache.getNodeId(), leaseMillis, leader -> handleLeadershipChange(state, leader));
+        vertx.eventBus().<Boolean>localConsumer(LEADER_BOARD_MISSING_ADDRESS + org).handler(msg -> {
+            // an empty set is only gone (e.g. flushed) once a rebuild has published it, the next rebuild is then a
+            // full one. Before that it just is not built yet, and later reads of it reset nothing more until rebuilt.
+            if (Boolean.TRUE.equals(msg.body()) && !state.leaderBoardBuilder.isEmpty()
+                    && state.leaderBoardReady.compareAndSet(Boolean.TRUE, Boolean.FALSE)) {
+                state.leaderBoardBuilder.reset();
+            }
+            if (state.isRefreshLeader() && state.leaderBoardReady.get() == Boolean.FALSE) {
+                state.refreshScheduler.refreshNow(PATH_ORG_REPOS.path(org));
+            }
+        });
+    }
+
+    private static String refreshingOrg(String path) {
+        final String org = ApiPathUtil.orgOf(path);
+        return org == null ? ApiPathUtil.defaultOrg() : org;
+    }
+
+    /*
+     * Serves the snapshot from the near cache, the paged collections and the view engines right away (shared by every
+     * instance, so only shard 0 does it).
+     */
+    private void warmFromSnapshot(Map<String, CachedResponse> loaded) {
+        loaded.forEach(nearCache::put);
+        Arrays.stream(ApiPathUtil.PROXY_PATH_PAGINATED_REFRESH.values()).forEach(path -> ApiPathUtil.orgs().stream()
+                .filter(org -> loaded.containsKey(path.path(org))).forEach(org -> offEventLoop(() -> {
+                    final List<RepoRecord> elements = repoPageParser.parseArray(loaded.get(path.path(org)).getBody());
+                    pagedCollections.put(path.path(org), PagedCollection.of(elements));
+                    if (path == PATH_ORG_REPOS) {
+                        RepoViewEngine.get(vertx, org).update(elements);
                     }
-                    leaderBoardReady.set(Boolean.TRUE);
-                });
+                    return elements;
+                }).onFailure(t -> System.out.println("Snapshot warm up of " + path.path(org) + " failed " + t))));
+        if (snapshot.isEnabled()) {
+            vertx.setPeriodic(TimeUnit.SECONDS.toMillis(snapshot.getIntervalSeconds()), id -> snapshot.saveIfDirty(vertx));
+        }
     }
 
-    private LeaderBoardEntryItem getLeaderBoardItem(JsonObject jsonObject, CustomViewsUtil.CUSTOM_VIEWS custom_views) {
-        String score;
-        if (custom_views.viewName.equals(last_updated.viewName)) {
-            final String time = jsonObject.getString(custom_views.viewName);
-            Instant timestamp = Instant.parse(time);
-            long timeInMillis = timestamp.toEpochMilli();
-            score = String.valueOf(timeInMillis);
+    /*
+     * Pushes each refreshed path's first refresh back by what is left of its base interval since the snapshot was saved.
+     */
+    private void deferRefreshesFromSnapshot(Map<String, CachedResponse> loaded) {
+        final long age = snapshot.loadedAgeMillis(System.currentTimeMillis());
+        orgStates.values().forEach(state -> {
+            Arrays.stream(ApiPathUtil.PROXY_PATH_REFRESH.values()).forEach(path -> path.paths().stream().filter(loaded::containsKey)
+                    .forEach(value -> state.refreshScheduler.deferFirstRun(value, TimeUnit.SECONDS.toMillis(path.refreshSeconds) - age)));
+            Arrays.stream(ApiPathUtil.PROXY_PATH_PAGINATED_REFRESH.values()).forEach(path -> path.paths().stream().filter(loaded::containsKey)
+                    .forEach(value -> state.refreshScheduler.deferFirstRun(value, TimeUnit.SECONDS.toMillis(path.refreshSeconds) - age)));
+        });
+    }
+
+    @Override
+    public void stop(Promise<Void> stopPromise) {
+        // every lease is released (or fails to) before the snapshot is saved
+        Future<Void> closed = Future.succeededFuture();
+        for (OrgState state : orgStates.values()) {
+            state.refreshScheduler.stop();
+            final Future<Void> close = state.leaderElection.close();
+            closed = closed.transform(previous -> close);
+        }
+        closed
+                .transform(r -> shard == 0 ? snapshot.saveIfDirty(vertx) : Future.<Void>succeededFuture())
+                .onComplete(r -> stopPromise.complete());
+    }
+
+    /*
+     * Only the org's leader (one lease per org across every app node sharing this Redis) refreshes and rebuilds.
+     * Nothing is flushed when it takes over: it overwrites every refreshed key and its first leaderboard rebuild is a
+     * full one (whatever a previous leader published may be stale).
+     */
+    private void handleLeadershipChange(OrgState state, boolean leader) {
+        if (leader) {
+            state.leaderBoardBuilder.reset();
+            state.refreshScheduler.start();
         } else {
-            score = jsonObject.getString(custom_views.viewName);
+            state.refreshScheduler.stop();
         }
-        final String repoName = jsonObject.getString("full_name");
-        LeaderBoardEntryItem item = LeaderBoardEntryItem.builder().key(repoName).setName(custom_views.setName).score(score).build();
-        return item;
     }
 
-    private Handler<Message<String>> handleRedisGETJsonRequest() {
-        return msg -> {
-            String pathName = msg.body();
-            redisAPI
-                    .get(pathName)
-                    .onFailure(t -> System.out.println("Redis get Response failed " + t))
-                    .onSuccess(message -> {
-                        if (message == null) {
-                            System.out.println("Missing in redis, updating cache entry");
-                            getAndSetInCacheAsKey(pathName, msg);
-                        } else {
-                            System.out.println("Redis API response1" + message);
-                            msg.reply(message.toString());
+    /*
+     * Tells org's refresh worker, wherever it runs in this JVM, that its sorted sets came back empty (gone) or could
+     * not be read: it resets its builder if they were published and are gone, and refreshes repos right away while it
+     * has not rebuilt them yet. Its consumer is the only place this happens, even for the worker itself.
+     */
+    private void leaderBoardMissing(String org, boolean gone) {
+        vertx.eventBus().send(LEADER_BOARD_MISSING_ADDRESS + org, gone);
+    }
+
+    /*
+     * Refresh writes broadcast the keys they change so every app node sharing this Redis drops its near cache copy.
+     */
+    private void subscribeToNearCacheInvalidation() {
+        // pub/sub needs a dedicated connection, it can't be shared with the command pool
+        Redis.createClient(vertx, new RedisOptions(redisOptions))
+                .connect()
+                .onFailure(t -> System.out.println("Redis subscribe connection failed " + t))
+                .onSuccess(connection -> {
+                    connection.handler(push -> {
+                        final String key = nearCache.handleInvalidationMessage(push);
+                        final String org = ApiPathUtil.orgOf(key);
+                        final OrgState state = org == null ? null : orgStates.get(org);
+                        if (ApiPathUtil.isConfiguredOrg(org) && PATH_ORG_REPOS.path(org).equals(key)
+                                && (state == null || !state.isRefreshLeader())) {
+                            reloadRepoViewEngine(org);
                         }
                     });
-        };
+                    connection.send(Request.cmd(Command.SUBSCRIBE).arg(NEAR_CACHE_INVALIDATION_CHANNEL))
+                            .onFailure(t -> System.out.println("Redis subscribe failed " + t));
+                });
     }
 
-    private Handler<Message<String>> handleRedisGETArrayNodeRequest() {
-        return msg -> {
-            String pathName = msg.body();
-            final String setKey;
-            if (pathName.contains("repos?page") || pathName.contains("members?page")) {
-                setKey = pathName.contains("repos?page") ? PATH_ORG_NETFLIX_REPOS.value : PATH_ORG_NETFLIX_MEMBERS.value;
-                getAndSetInCacheAsSet(pathName, setKey, msg);
-            } else {
-                redisAPI
-                        .smembers(pathName)
-                        .onFailure(t -> System.out.println("Redis smembers Response failed " + t))
-                        .onSuccess(message -> {
-                            if (message == null) {
-                                System.out.println("Missing in redis, updating cache entry");
-                                getAndSetInCacheAsSet(pathName, pathName, msg);
-                            } else {
-                                System.out.println("Redis SMembers Successful: " + pathName + " with key " + pathName);
-                                msg.reply(message.toString());
-                            }
-                        });
+    /*
+     * Followers never fetch repos themselves, their view engine follows the leader's generations instead.
+     */
+    private void reloadRepoViewEngine(String org) {
+        redis("hvals", () -> redisAPI.hvals(PATH_ORG_REPOS.path(org)))
+                .onFailure(t -> System.out.println("Redis hvals Response failed " + t))
+                .onSuccess(members -> {
+                    if (members != null && members.size() > 0) {
+                        offEventLoop(() -> decodeMembers(members))
+                                .onSuccess(elements -> RepoViewEngine.get(vertx, org).update(elements));
+                    }
+                });
+    }
+
+    /*
+     * Latency from issuing the command until its reply, waiting for a pooled connection included.
+     */
+    private <T> Future<T> redis(String command, Supplier<Future<T>> call) {
+        return MetricsUtil.timed(MetricsUtil.timer("redis_command_latency", "command", command), call);
+    }
+
+    /*
+     * CPU heavy steps (parsing a collection, gzip, the leaderboard diff) run inline on a worker context. In event-loop
+     * mode they go to a worker thread instead, they would block every other request of this event loop (and trip the
+     * blocked thread checker on multi-MB collections). Completes back on the calling context either way.
+     */
+    private <T> Future<T> offEventLoop(Supplier<T> work) {
+        if (!Context.isOnEventLoopThread()) {
+            try {
+                return Future.succeededFuture(work.get());
+            } catch (RuntimeException e) {
+                return Future.failedFuture(e);
             }
-        };
+        }
+        return vertx.executeBlocking(promise -> promise.complete(work.get()), false);
     }
 
-    private void getAndSetInCacheAsKey(String pathName) {
-        getAndSetInCacheAsKey(pathName, null);
+    private void publishNearCacheInvalidation(String key) {
+        redisAPI.publish(NEAR_CACHE_INVALIDATION_CHANNEL, nearCache.invalidationMessage(key))
+                .onFailure(t -> System.out.println("Redis publish Response failed " + t));
     }
 
-    private void getAndSetInCacheAsSet(String pathName, String setKey) {
-        getAndSetInCacheAsSet(pathName, setKey, null);
+    /*
+     * Rebuilds run once per refreshed repos snapshot and never overlap: a snapshot arriving while a rebuild is in flight
+     * is parked and only the latest parked one is applied afterwards.
+     * Only the org's refresh worker rebuilds, repos fetched on a miss by another instance are left to its next refresh.
+     */
+    private void updateBottomNRankedItem(String org, List<RepoRecord> repos) {
+        final OrgState state = orgStates.get(org);
+        if (state == null) {
+            return;
+        }
+        if (state.leaderBoardRebuildInFlight.getAndSet(Boolean.TRUE)) {
+            state.pendingLeaderBoardRepos.set(repos);
+            return;
+        }
+        final Timer.Context rebuildLatency = MetricsUtil.timer("leaderboard_rebuild_latency").time();
+        offEventLoop(() -> state.leaderBoardBuilder.diff(repos))
+                .compose(batch -> {
+                    System.out.println("Updating Leaderboard of " + org + " with " + Math.max(0, batch.size() - 2) + " commands");
+                    return batch.isEmpty() ? Future.succeededFuture(Boolean.FALSE) :
+                            redis("batch", () -> redisClient.batch(batch)).map(Boolean.TRUE);
+                })
+                .onFailure(t -> {
+                    System.out.println("Redis refresh leaderboard batch failed " + t);
+                    state.leaderBoardBuilder.reset();
+                })
+                .onSuccess(written -> {
+                    if (written) {
+                        final String viewPrefix = ApiPathUtil.orgViewPath(org, VIEW_KEY_PREFIX);
+                        nearCache.invalidatePrefix(viewPrefix);
+                        publishNearCacheInvalidation(viewPrefix + "*");
+                    }
+                    state.leaderBoardReady.set(Boolean.TRUE);
+                })
+                .onComplete(r -> {
+                    rebuildLatency.stop();
+                    state.leaderBoardRebuildInFlight.set(Boolean.FALSE);
+                    final List<RepoRecord> pending = state.pendingLeaderBoardRepos.getAndSet(null);
+                    if (pending != null) {
+                        updateBottomNRankedItem(org, pending);
+                    }
+                });
     }
 
-    private void getAndSetInCacheAsSet(String pathName, String setKey,Message<String> message) {
-        vertx.eventBus().request(GITHUB_EVENT_ADDRESS, pathName, response -> {
-            if (response.succeeded()) {
-                final String value = response.result().body().toString();
-                final JsonArray array = new JsonArray(response.result().body().toString());
-                ArrayList<String> paramList = new ArrayList<>(array.size() + 1);
-                paramList.add(0, setKey);
-                for(int i = 0; i < array.size(); i++){
-                    paramList.add(array.getJsonObject(i).encodePrettily());
-                }
-                redisAPI
-                    .sadd(paramList).onSuccess(r -> updateBottomNRankedItem());
-                if (message != null) {
-                    message.reply(value);
-                }
+    private Handler<Message<String>> handleRedisGETJsonRequest() {
+        return msg -> replyRefreshed(msg, () -> readKey(msg.body()), () -> getAndSetInCacheAsKey(msg.body(), false));
+    }
+
+    private Handler<Message<String>> handleRedisGETArrayNodeRequest() {
+        return msg -> replyRefreshed(msg, () -> readSet(msg.body()), () -> getAndSetInCacheAsSet(msg.body(), false));
+    }
+
+    /*
+     * A refreshed path in the near cache is replied at once, fresh or stale. A stale one is reloaded in the background
+     * (from Redis, from git when Redis misses) and keeps being served with an extended stale window if that fails.
+     * Otherwise it is read from Redis, then replied from the snapshot or fetched.
+     */
+    private void replyRefreshed(Message<String> msg, Supplier<Future<CachedResponse>> read, Supplier<Future<CachedResponse>> fetch) {
+        final String pathName = msg.body();
+        final CachedResponse cached = nearCache.get(pathName);
+        if (cached != null) {
+            msg.reply(cached);
+            if (!cached.isFresh(System.currentTimeMillis())) {
+                missFetches.execute(pathName, () -> read.get().compose(stored -> stored != null ? Future.succeededFuture(stored) : fetch.get()))
+                        .onFailure(t -> {
+                            System.out.println("Reload failed, serving stale " + pathName);
+                            nearCache.put(pathName, nearCache.extendStaleness(cached));
+                        });
+            }
+            return;
+        }
+        read.get().onSuccess(stored -> {
+            if (stored != null) {
+                msg.reply(stored);
             } else {
-                System.out.println("Git:Redis GET/SET failed " + response.cause());
+                System.out.println("Missing in redis, updating cache entry");
+                replyFromSnapshotOrFetch(msg, pathName, fetch);
             }
         });
     }
 
-    private void getAndSetInCacheAsKey(String pathName, Message<String> message) {
-        vertx.eventBus().request(GITHUB_EVENT_ADDRESS, pathName, response -> {
-            if (response.succeeded()) {
-                final String value = response.result().body().toString();
-                redisAPI
-                        .set(List.of(pathName, value),
-                                redisResult -> System.out.println("Redis set:key response" + redisResult.result()));
+    /*
+     * Completes with null when the key is missing or can't be read, never fails.
+     */
+    private Future<CachedResponse> readKey(String pathName) {
+        return redis("get", () -> redisAPI.get(pathName))
+                .compose(message -> message == null ? Future.<CachedResponse>succeededFuture() :
+                        offEventLoop(() -> CachedResponse.ofJsonObject(storageCodec.decode(message.toBuffer()).toString())))
+                .map(rendered -> {
+                    if (rendered == null) {
+                        return null;
+                    }
+                    System.out.println("Redis API response1 " + pathName);
+                    nearCache.put(pathName, nearCache.withFreshness(rendered));
+                    snapshot.record(pathName, rendered);
+                    return rendered;
+                })
+                .otherwise(t -> {
+                    System.out.println("Redis get Response failed, fetching from git " + t);
+                    return null;
+                });
+    }
 
-                if (message != null) {
-                    message.reply(value);
+    /*
+     * Completes with null when the collection is missing or can't be read (e.g. WRONGTYPE on a key left by an older
+     * layout, the refetch overwrites it), never fails.
+     */
+    private Future<CachedResponse> readSet(String pathName) {
+        return redis("hvals", () -> redisAPI.hvals(pathName))
+                .compose(members -> members == null || members.size() == 0 ? Future.<PagedCollection>succeededFuture() :
+                        offEventLoop(() -> PagedCollection.of(decodeMembers(members))))
+                .map(paged -> {
+                    if (paged == null) {
+                        return null;
+                    }
+                    System.out.println("Redis HVals Successful: " + pathName);
+                    pagedCollections.put(pathName, paged);
+                    final CachedResponse rendered = paged.getFull();
+                    nearCache.put(pathName, nearCache.withFreshness(rendered));
+                    snapshot.record(pathName, rendered);
+                    return rendered;
+                })
+                .otherwise(t -> {
+                    System.out.println("Redis hvals Response failed, fetching from git " + t.getMessage());
+                    return null;
+                });
+    }
 
-                }
-            } else {
-                System.out.println("Git:Redis GET/SET failed " + response.cause());
+    /*
+     * Any other proxied path, from the ProxyResponseCache tier or a PROXY_KEY_PREFIX + path hash in Redis. Stale
+     * entries are replied at once while a single background revalidation runs, a failed revalidation (git unreachable
+     * or 5xx) extends their staleness instead.
+     */
+    private Handler<Message<String>> handleRedisProxyRequest() {
+        return msg -> {
+            String pathName = msg.body();
+            final CachedResponse cached = proxyResponseCache.get(pathName);
+            if (cached != null) {
+                msg.reply(cached);
+                revalidateIfStale(pathName, cached);
+                return;
             }
+            final String key = PROXY_KEY_PREFIX + pathName;
+            redis("hmget", () -> redisAPI.hmget(List.of(key, PROXY_BODY_FIELD, PROXY_ETAG_FIELD, PROXY_LAST_MODIFIED_FIELD,
+                            PROXY_FRESH_UNTIL_FIELD, PROXY_STALE_UNTIL_FIELD)))
+                    .onComplete(result -> {
+                        final Response fields = result.succeeded() ? result.result() : null;
+                        if (result.failed()) {
+                            System.out.println("Redis proxy hmget Response failed, fetching from git " + result.cause());
+                        }
+                        if (fields == null || fields.get(0) == null) {
+                            replyWithMissFetch(msg, missFetches.execute(key, () -> getAndSetInCacheAsProxy(pathName)));
+                        } else {
+                            final CachedResponse stored = storageCodec
+                                    .decode(fields.get(0).toBuffer(), fields.get(1).toString(), fields.get(2).toLong())
+                                    .withFreshness(fields.get(3).toLong(), fields.get(4).toLong());
+                            proxyResponseCache.offer(pathName, stored);
+                            msg.reply(stored);
+                            revalidateIfStale(pathName, stored);
+                        }
+                    });
+        };
+    }
+
+    private void revalidateIfStale(String pathName, CachedResponse cached) {
+        if (cached.isFresh(System.currentTimeMillis())) {
+            return;
+        }
+        missFetches.execute(PROXY_KEY_PREFIX + pathName, () -> getAndSetInCacheAsProxy(pathName))
+                .onFailure(t -> {
+                    System.out.println("Git revalidation failed, serving stale " + pathName);
+                    storeProxyEntry(pathName, proxyResponseCache.extendStaleness(cached));
+                });
+    }
+
+    /*
+     * Fails when git is unreachable or answers 5xx, any other response is replied (and cached only if 200).
+     */
+    private Future<CachedResponse> getAndSetInCacheAsProxy(String pathName) {
+        return vertx.eventBus().request(GITHUB_EVENT_ADDRESS, pathName, gitRequestOptions(false))
+                .onFailure(t -> System.out.println("Git:Redis proxy GET/SET failed " + t))
+                .compose(response -> {
+                    final String status = response.headers().get(STATUS_HEADER);
+                    if (status == null || Integer.parseInt(status) >= HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                        return Future.failedFuture("Git responded " + status + " for " + pathName);
+                    }
+                    final long ttlSeconds = "200".equals(status) ?
+                            proxyResponseCache.policy().ttlSeconds(pathName, response.headers().get(CACHE_CONTROL_HEADER)) : 0;
+                    return offEventLoop(() -> CachedResponse.of(response.body().toString())).map(rendered -> {
+                        if (ttlSeconds <= 0) {
+                            return rendered;
+                        }
+                        final CachedResponse fresh = proxyResponseCache.withFreshness(rendered, ttlSeconds);
+                        storeProxyEntry(pathName, fresh);
+                        return fresh;
+                    });
+                });
+    }
+
+    private void storeProxyEntry(String pathName, CachedResponse response) {
+        final String key = PROXY_KEY_PREFIX + pathName;
+        redis("batch", () -> redisClient.batch(List.of(
+                        Request.cmd(Command.MULTI),
+                        Request.cmd(Command.HSET).arg(key)
+                                .arg(PROXY_BODY_FIELD).arg(storageCodec.encode(response))
+                                .arg(PROXY_ETAG_FIELD).arg(response.getEtag())
+                                .arg(PROXY_LAST_MODIFIED_FIELD).arg(response.getLastModified())
+                                .arg(PROXY_FRESH_UNTIL_FIELD).arg(response.getFreshUntil())
+                                .arg(PROXY_STALE_UNTIL_FIELD).arg(response.getStaleUntil()),
+                        Request.cmd(Command.PEXPIREAT).arg(key).arg(response.getStaleUntil()),
+                        Request.cmd(Command.EXEC))))
+                .onFailure(t -> System.out.println("Redis proxy hset Response failed " + t))
+                .onSuccess(r -> proxyResponseCache.offer(pathName, response));
+    }
+
+    private Future<CachedResponse> getAndSetInCacheAsKey(String pathName) {
+        return getAndSetInCacheAsKey(pathName, true);
+    }
+
+    private Future<CachedResponse> getAndSetInCacheAsSet(String pathName) {
+        return getAndSetInCacheAsSet(pathName, true);
+    }
+
+    /*
+     * A path missing in Redis (e.g. Redis restarted with this node) is replied from the snapshot if there, the fetch
+     * repopulating Redis then runs in the background. If that fails the snapshot copy is served stale from the near
+     * cache meanwhile.
+     */
+    private void replyFromSnapshotOrFetch(Message<String> msg, String pathName, Supplier<Future<CachedResponse>> fetch) {
+        final CachedResponse saved = snapshot.get(pathName);
+        if (saved == null) {
+            replyWithMissFetch(msg, missFetches.execute(pathName, fetch));
+            return;
+        }
+        msg.reply(saved);
+        missFetches.execute(pathName, fetch).onFailure(t -> {
+            System.out.println("Git fetch failed, serving snapshot stale " + pathName);
+            nearCache.put(pathName, nearCache.extendStaleness(saved));
         });
     }
 
+    private static void replyWithMissFetch(Message<String> msg, Future<CachedResponse> fetch) {
+        fetch
+                .onSuccess(msg::reply)
+                .onFailure(t -> msg.fail(HttpStatus.BAD_GATEWAY.value(), "Git:Redis GET/SET failed " + t.getMessage()));
+    }
+
+    private static DeliveryOptions gitRequestOptions(boolean conditional) {
+        return new DeliveryOptions().addHeader(CONDITIONAL_HEADER, String.valueOf(conditional));
+    }
+
+    private static boolean isNotModified(Message<Object> gitResponse) {
+        return "304".equals(gitResponse.headers().get(STATUS_HEADER));
+    }
+
+    /*
+     * Git replies with every page of pathName already assembled, so the collection is written and the leaderboard
+     * rebuilt once per refresh rather than once per page.
+     * Each refresh writes a new generation, a hash keyed by element id, and RENAMEs it over pathName in the same
+     * MULTI/EXEC: readers see either the previous or the new generation, never a mix, and removed elements are gone
+     * with the previous generation. Elements are always served ordered by id.
+     * The body is read once by RepoPageParser: elements are stored in Redis as GitHub sent them, the leaderboard and
+     * the view engine only get their primitive fields.
+     * Completes with the fetched response, or null when a conditional fetch came back not modified.
+     */
+    private Future<CachedResponse> getAndSetInCacheAsSet(String pathName, boolean conditional) {
+        return vertx.eventBus().request(GITHUB_PAGINATED_EVENT_ADDRESS, pathName, gitRequestOptions(conditional))
+                .onFailure(t -> System.out.println("Git:Redis GET/SET failed " + t))
+                .compose(response -> {
+                    if (isNotModified(response)) {
+                        System.out.println("Git not modified, skipping redis generation for " + pathName);
+                        return Future.succeededFuture();
+                    }
+                    final Buffer body = (Buffer) response.body();
+                    return offEventLoop(() -> new Generation(pathName, sortedById(repoPageParser.parseArray(body))))
+                            .map(generation -> writeGeneration(pathName, generation));
+                });
+    }
+
+    private CachedResponse writeGeneration(String pathName, Generation generation) {
+        final List<RepoRecord> elements = generation.elements;
+        pagedCollections.put(pathName, generation.paged);
+        final CachedResponse rendered = generation.paged.getFull();
+        snapshot.record(pathName, rendered);
+        if (!elements.isEmpty()) {
+            redis("batch", () -> redisClient.batch(List.of(Request.cmd(Command.MULTI), generation.hset,
+                        Request.cmd(Command.RENAME).arg(generation.key).arg(pathName), Request.cmd(Command.EXEC))))
+                .onFailure(t -> System.out.println("Redis generation switch failed for " + pathName + " " + t))
+                .onSuccess(r -> {
+                    if (nearCache.put(pathName, nearCache.withFreshness(rendered))) {
+                        publishNearCacheInvalidation(pathName);
+                    }
+                    final String org = ApiPathUtil.orgOf(pathName);
+                    if (org != null && PATH_ORG_REPOS.path(org).equals(pathName)) {
+                        RepoViewEngine.get(vertx, org).update(elements);
+                        updateBottomNRankedItem(org, elements);
+                    }
+                });
+        }
+        return rendered;
+    }
+
+    private List<RepoRecord> decodeMembers(Response members) {
+        final List<RepoRecord> elements = new ArrayList<>(members.size());
+        for (Response member : members) {
+            elements.add(repoPageParser.parseObject(storageCodec.decode(member.toBuffer())));
+        }
+        return sortedById(elements);
+    }
+
+    private static List<RepoRecord> sortedById(List<RepoRecord> elements) {
+        elements.sort(Comparator.comparingLong(RepoRecord::getId));
+        return elements;
+    }
+
+    /*
+     * Only a 200 is written, any other status (e.g. a 403 rate limit or a 404 error document) fails the refresh and
+     * leaves the last good value in Redis, the near cache and the snapshot.
+     * Completes with the fetched response, or null when a conditional fetch came back not modified.
+     */
+    private Future<CachedResponse> getAndSetInCacheAsKey(String pathName, boolean conditional) {
+        return vertx.eventBus().request(GITHUB_EVENT_ADDRESS, pathName, gitRequestOptions(conditional))
+                .onFailure(t -> System.out.println("Git:Redis GET/SET failed " + t))
+                .compose(response -> {
+                    if (isNotModified(response)) {
+                        System.out.println("Git not modified, skipping redis SET for " + pathName);
+                        return Future.succeededFuture();
+                    }
+                    final String status = response.headers().get(STATUS_HEADER);
+                    if (!String.valueOf(HttpStatus.OK.value()).equals(status)) {
+                        System.out.println("Git responded " + status + ", skipping redis SET for " + pathName);
+                        return Future.failedFuture("Git responded " + status + " for " + pathName);
+                    }
+                    final String value = response.body().toString();
+                    return offEventLoop(() -> Map.entry(CachedResponse.ofJsonObject(value), storageCodec.encode(Buffer.buffer(value))))
+                            .map(renderedAndStored -> {
+                                final CachedResponse rendered = renderedAndStored.getKey();
+                                snapshot.record(pathName, rendered);
+                                redis("set", () -> redisClient.send(Request.cmd(Command.SET).arg(pathName).arg(renderedAndStored.getValue())))
+                                        .onComplete(redisResult -> {
+                                            System.out.println("Redis set:key response" + redisResult.result());
+                                            if (redisResult.succeeded() && nearCache.put(pathName, nearCache.withFreshness(rendered))) {
+                                                publishNearCacheInvalidation(pathName);
+                                            }
+                                        });
+                                return rendered;
+                            });
+                });
+    }
+
     private Handler<Message<String>> handleRedisRankRequest() {
         return msg -> {
+            // /orgs/{org}/view/bottom/{N}/{column}
             String pathName = msg.body();
             List<String> param = List.of(pathName.split("/"));
-            int bottomN = Integer.parseInt(param.get(3));
-            CustomViewsUtil.CUSTOM_VIEWS views = CustomViewsUtil.CUSTOM_VIEWS.valueOf(param.get(4));
-            if (leaderBoardReady.get() == Boolean.FALSE) {
-                handleRedisRefreshTask();
+            String org = param.get(2);
+            final int bottomN;
+            try {
+                bottomN = Integer.parseInt(param.get(5));
+            } catch (NumberFormatException e) {
+                msg.fail(HttpStatus.BAD_REQUEST.value(), "N must be a number");
+                return;
+            }
+            CustomViewsUtil.CUSTOM_VIEWS views = CustomViewsUtil.CUSTOM_VIEWS.valueOf(param.get(6));
+            final CachedResponse cached = nearCache.get(pathName);
+            if (cached != null) {
+                msg.reply(cached);
+                return;
             }
-            redisAPI
-                    .zrange(List.of(views.setName, "0", String.valueOf(bottomN - 1), "WITHSCORES"))
-                    .onFailure(t -> System.out.println("Redis zrange Response failed " + t))
-                    .onSuccess(message -> {
-                        if (message == null || message.toString().equals("[]")) {
-                            msg.reply("leader board not yet ready");
+            if (bottomN <= 0) {
+                msg.reply("[]");
+                return;
+            }
+            // scores are stored negated, so the bottom N are the last N of the natural (score, member) order and
+            // already come back as required: highest value first, ties by ascending repo name
+            redis("zrange", () -> redisAPI.zrange(List.of(views.setKey(org), String.valueOf(-bottomN), "-1", "WITHSCORES")))
+                    .onComplete(result -> {
+                        final Response message = result.succeeded() ? result.result() : null;
+                        if (result.failed()) {
+                            System.out.println("Redis zrange Response failed " + result.cause());
+                        }
+                        if (message == null || message.size() == 0) {
+                            leaderBoardMissing(org, result.succeeded());
+                            replyFromViewEngine(msg, org, views, bottomN);
                         } else {
-                            List<LeaderBoardOutputItem> outputItemList = getAsList(views.setName, message);
-
-                            if (outputItemList.size() <= 1 || views.setName.equals(last_updated.setName)) {
-                                Collections.reverse(outputItemList); //reverse botton N in decreasing order
-                                msg.reply(outputItemList.toString());
-                            }
-                            else {
-                                String bottomN_HighestRank = String.valueOf(outputItemList.get(outputItemList.size() - 1).getScore());
-                                Set<Integer> scoreSet = new HashSet<>();
-                                outputItemList.forEach(item -> {
-                                    scoreSet.add(item.getScore());
-                                });
-
-                                redisAPI
-                                        .zrangebyscore(List.of(views.setName, bottomN_HighestRank, bottomN_HighestRank, "WITHSCORES"))
-                                        .onFailure(t -> System.out.println("Redis zrange Response failed " + t))
-                                        .onSuccess(secondMessage -> {
-                                            if (secondMessage == null || secondMessage.toString().equals("[]")) {
-                                                msg.reply("leader board not yet ready");
-                                            } else {
-                                                List<LeaderBoardOutputItem> outputItemList2 = getAsList(views.setName, secondMessage);
-                                                if (scoreSet.size() == 1) {
-                                                    outputItemList2.sort(Comparator.comparing(LeaderBoardOutputItem::getRepoFullName).reversed());
-                                                    List<LeaderBoardOutputItem> finalList = outputItemList2.subList(0, bottomN);
-                                                    Collections.reverse(finalList);
-                                                    msg.reply(finalList.toString());
-                                                } else {
-                                                    outputItemList2.sort(Comparator.comparing(LeaderBoardOutputItem::getRepoFullName).reversed());
-                                                    int totalRemoved = 0;
-                                                    for (int i = outputItemList.size() - 1; i >= 0; i--) {
-                                                        if (outputItemList.get(i).getScore() == Integer.parseInt(bottomN_HighestRank)) {
-                                                            outputItemList.remove(i);
-                                                            totalRemoved++;
-                                                        }
-                                                    }
-                                                    //sorted twice 1) by score (desc), 2) by Repo Full name (asc)
-                                                    outputItemList.sort(Comparator.comparing(LeaderBoardOutputItem::getScore)
-                                                            .thenComparing(LeaderBoardOutputItem::getRepoFullName));
-                                                    List<LeaderBoardOutputItem> outputItemList1 = outputItemList2.subList(0, totalRemoved);
-                                                    outputItemList1.addAll(outputItemList);
-                                                    msg.reply(outputItemList1.toString());
-                                                }
-                                            }
-                                        });
-                            }
+                            replyAndCacheView(msg, pathName, getAsList(views, message).toString());
                         }
                     });
+        };
+    }
 
+    /*
+     * msg body is a batch normalized by CachingService. Sub-queries already in the near cache take no Redis read, the
+     * sorted set ones left go out as a single pipeline (no MULTI, each ZRANGE reads one set on its own) and are cached
+     * one by one like their single view. Top N / other columns, and sets not (re)built yet, come from the view engine,
+     * a document using that fallback is not cached.
+     */
+    private Handler<Message<String>> handleRedisRankBatchRequest() {
+        return msg -> {
+            final List<ViewQuery> queries = ViewQuery.fromBatchKey(msg.body());
+            final String org = queries.get(0).getOrg();
+            final Map<String, String> views = new LinkedHashMap<>();
+            final List<ViewQuery> pending = new ArrayList<>();
+            for (ViewQuery query : queries) {
+                final CachedResponse cached = nearCache.get(query.path());
+                if (query.getN() <= 0) {
+                    views.put(query.key(), "[]");
+                } else if (cached != null) {
+                    views.put(query.key(), cached.getBody().toString());
+                } else {
+                    views.put(query.key(), null);
+                    if (query.leaderBoard() != null) {
+                        pending.add(query);
+                    }
+                }
+            }
+            final List<Request> requests = new ArrayList<>(pending.size());
+            pending.forEach(query -> requests.add(Request.cmd(Command.ZRANGE).arg(query.leaderBoard().setKey(org))
+                    .arg(-query.getN()).arg(-1).arg("WITHSCORES")));
+            final Future<List<Response>> zranges = requests.isEmpty() ? Future.succeededFuture(List.of())
+                    : redis("pipeline", () -> redisClient.batch(requests));
+            zranges.onComplete(result -> {
+                if (result.failed()) {
+                    System.out.println("Redis zrange pipeline failed " + result.cause());
+                }
+                boolean setsMissing = false;
+                for (int i = 0; i < pending.size(); i++) {
+                    final ViewQuery query = pending.get(i);
+                    final Response message = result.succeeded() ? result.result().get(i) : null;
+                    if (message == null || message.size() == 0) {
+                        setsMissing = true;
+                    } else {
+                        final String reply = getAsList(query.leaderBoard(), message).toString();
+                        nearCache.put(query.path(), CachedResponse.of(reply));
+                        views.put(query.key(), reply);
+                    }
+                }
+                if (setsMissing) {
+                    leaderBoardMissing(org, result.succeeded());
+                }
+                final boolean fromViewEngine = views.containsValue(null);
+                final RepoViewEngine viewEngine = RepoViewEngine.get(vertx, org);
+                if (fromViewEngine && !viewEngine.isReady()) {
+                    msg.reply("leader board not yet ready");
+                    return;
+                }
+                final StringBuilder document = new StringBuilder("{");
+                queries.forEach(query -> {
+                    final String view = views.get(query.key()) != null ? views.get(query.key())
+                            : viewEngine.query(query.getDirection(), String.valueOf(query.getN()), query.getColumn(),
+                            MultiMap.caseInsensitiveMultiMap());
+                    document.append(document.length() > 1 ? "," : "").append('"').append(query.key()).append("\":").append(view);
+                });
+                final CachedResponse rendered = CachedResponse.ofJsonObject(document.append('}').toString());
+                if (!fromViewEngine) {
+                    nearCache.put(msg.body(), rendered);
+                }
+                msg.reply(rendered);
+            });
         };
     }
 
-    private List<LeaderBoardOutputItem> getAsList(String setName, Response message) {
-        final String[] result = message.toString().split("],");
-        final List<LeaderBoardOutputItem> outputItemList = new ArrayList<>();
-        for (String each : result) {
-            String[] eachSplit = each.split(",");
-            LeaderBoardOutputItem outputItem = getLeaderBoardOutputItem(setName, eachSplit);
-            outputItemList.add(outputItem);
+    /*
+     * Until the sorted sets are (re)built the same bottom N is computed from the view engine (loaded from the snapshot
+     * at boot), ties may come back in another order. Not cached, the rebuild invalidates nothing for it.
+     */
+    private void replyFromViewEngine(Message<String> msg, String org, CustomViewsUtil.CUSTOM_VIEWS views, int bottomN) {
+        final RepoViewEngine viewEngine = RepoViewEngine.get(vertx, org);
+        if (!viewEngine.isReady()) {
+            msg.reply("leader board not yet ready");
+            return;
         }
-        return outputItemList;
+        msg.reply(CachedResponse.of(viewEngine.query("bottom", String.valueOf(bottomN), views.name(),
+                MultiMap.caseInsensitiveMultiMap())));
     }
 
-    private LeaderBoardOutputItem getLeaderBoardOutputItem(String setName, String[] eachSplit) {
-        LeaderBoardOutputItem outputItem;
-        if (setName.equals(last_updated.setName)) {
-            outputItem = new LeaderBoardOutputItem(eachSplit[0].substring(2), getScoreAsString(eachSplit));
-        } else {
-            outputItem = new LeaderBoardOutputItem(eachSplit[0].substring(2), getScoreAsInt(eachSplit));
+    private void replyAndCacheView(Message<String> msg, String pathName, String reply) {
+        final CachedResponse rendered = CachedResponse.of(reply);
+        nearCache.put(pathName, rendered);
+        msg.reply(rendered);
+    }
+
+    /*
+     * ZRANGE WITHSCORES is a flat [member, score, ...] list on RESP2 and a list of [member, score] pairs on RESP3.
+     */
+    static List<LeaderBoardOutputItem> getAsList(CustomViewsUtil.CUSTOM_VIEWS views, Response message) {
+        final List<LeaderBoardOutputItem> outputItemList = new ArrayList<>(message.size());
+        final boolean pairs = message.get(0).type() == ResponseType.MULTI;
+        final int step = pairs ? 1 : 2;
+        for (int i = 0; i < message.size(); i += step) {
+            final Response member = pairs ? message.get(i).get(0) : message.get(i);
+            final Response score = pairs ? message.get(i).get(1) : message.get(i + 1);
+            final long value = -score.toDouble().longValue();
+            outputItemList.add(views == last_updated ?
+                    new LeaderBoardOutputItem(member.toString(), String.valueOf(value)) :
+                    new LeaderBoardOutputItem(member.toString(), (int) value));
         }
-        return outputItem;
+        return outputItemList;
     }
 
-    private int getScoreAsInt(String[] eachSplit) {
-        return (int) Double.parseDouble(eachSplit[1].replace("]", "").trim());
+    /*
+     * A fetched collection made ready off the event loop: its elements, its pages (the full body rendered and gzipped)
+     * and the HSET of the new generation.
+     */
+    private final class Generation {
+        private final String key;
+        private final List<RepoRecord> elements;
+        private final PagedCollection paged;
+        private final Request hset;
+
+        private Generation(String pathName, List<RepoRecord> elements) {
+            this.key = pathName + GENERATION_SUFFIX + UUID.randomUUID();
+            this.elements = elements;
+            this.paged = PagedCollection.of(elements);
+            this.hset = Request.cmd(Command.HSET).arg(key);
+            for (RepoRecord element : elements) {
+                hset.arg(String.valueOf(element.getId())).arg(storageCodec.encode(element.getRaw()));
+            }
+        }
     }
 
-    private String getScoreAsString(String[] eachSplit) {
-        return eachSplit[1].replace("]", "").trim();
+    /*
+     * Refresh state of one org this instance is the refresh worker of: its leaderboard, scheduler and leader election.
+     */
+    private static class OrgState {
+        private final LeaderBoardBuilder leaderBoardBuilder;
+        private final AtomicBoolean leaderBoardRebuildInFlight = new AtomicBoolean(Boolean.FALSE);
+        private final AtomicReference<List<RepoRecord>> pendingLeaderBoardRepos = new AtomicReference<>();
+        private final AtomicBoolean leaderBoardReady = new AtomicBoolean(Boolean.FALSE);
+        private RefreshScheduler refreshScheduler;
+        private RefreshLeaderElection leaderElection;
+
+        private OrgState(String org) {
+            this.leaderBoardBuilder = new LeaderBoardBuilder(org);
+        }
+
+        private boolean isRefreshLeader() {
+            return leaderElection != null && leaderElection.isLeader();
+        }
     }
 }
@@ -0,0 +1,113 @@
+package cache;
+
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.redis.client.RedisAPI;
+
+import java.util.List;
+
+/**
+ * RefreshLeaderElection elects the single app node, among every node sharing the same Redis, allowed to refresh
+ * from git and rebuild the leaderboard (of one org, see leaderKey). Leadership is a lease: the leader key set NX with a
+ * leaseMillis expiry to this node's id, renewed every leaseMillis / 3 only if still owned (RENEW_SCRIPT) and deleted on close (RELEASE_SCRIPT).
+ * Followers retry acquiring at the same pace, so a crashed leader is replaced within about 4/3 of a lease and a
+ * closed one at the next attempt. A leader that can't renew for a whole lease steps down on its own.
+ * Must be used from the owning verticle's context only.
+ */
+public class RefreshLeaderElection {
+
+    private static final String LEADER_KEY = "refreshLeader";
+    public static final String RENEW_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end";
+    public static final String RELEASE_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
+
+    private final Vertx vertx;
+    private final RedisAPI redisAPI;
+    private final String leaderKey;
+    private final String nodeId;
+    private final long leaseMillis;
+    private final Handler<Boolean> leadershipHandler;
+    private boolean leader;
+    private boolean closed;
+    private long renewedAt;
+    private long timerId = -1;
+
+    /**
+     * @param leaderKey the lease key, see leaderKey(org).
+     * @param leadershipHandler called with true when this node becomes leader, false when it stops being one.
+     */
+    public RefreshLeaderElection(Vertx vertx, RedisAPI redisAPI, String leaderKey, String nodeId, long leaseMillis,
+                                 Handler<Boolean> leadershipHandler) {
+        this.vertx = vertx;
+        this.redisAPI = redisAPI;
+        this.leaderKey = leaderKey;
+        this.nodeId = nodeId;
+        this.leaseMillis = leaseMillis;
+        this.leadershipHandler = leadershipHandler;
+    }
+
+    public void start() {
+        campaign();
+        timerId = vertx.setPeriodic(Math.max(1, leaseMillis / 3), id -> campaign());
+    }
+
+    /**
+     * Leader key of org's lease, leadership of every org is elected on its own.
+     */
+    public static String leaderKey(String org) {
+        return LEADER_KEY + ":{" + org + "}";
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    public Future<Void> close() {
+        closed = true;
+        vertx.cancelTimer(timerId);
+        if (!leader) {
+            return Future.succeededFuture();
+        }
+        setLeader(false);
+        return redisAPI.eval(List.of(RELEASE_SCRIPT, "1", leaderKey, nodeId)).mapEmpty();
+    }
+
+    private void campaign() {
+        if (leader) {
+            redisAPI.eval(List.of(RENEW_SCRIPT, "1", leaderKey, nodeId, String.valueOf(leaseMillis)))
+                    .onSuccess(renewed -> {
+                        if (renewed != null && renewed.toInteger() == 1) {
+                            renewedAt = System.currentTimeMillis();
+                        } else {
+                            System.out.println("Refresh leadership of " + leaderKey + " lost by " + nodeId);
+                            setLeader(false);
+                        }
+                    })
+                    .onFailure(t -> {
+                        System.out.println("Refresh lease renewal failed " + t.getMessage());
+                        if (System.currentTimeMillis() - renewedAt >= leaseMillis) {
+                            setLeader(false);
+                        }
+                    });
+        } else {
+            redisAPI.set(List.of(leaderKey, nodeId, "NX", "PX", String.valueOf(leaseMillis)))
+                    .onSuccess(acquired -> {
+                        if (acquired != null && !leader && !closed) {
+                            System.out.println("Refresh leadership of " + leaderKey + " acquired by " + nodeId);
+                            renewedAt = System.currentTimeMillis();
+                            setLeader(true);
+                        }
+                    })
+                    .onFailure(t -> System.out.println("Refresh lease acquisition failed " + t.getMessage()));
+        }
+    }
+
+    private void setLeader(boolean leader) {
+        if (this.leader != leader) {
+            this.leader = leader;
+            leadershipHandler.handle(leader);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package cache;
+
+import com.codahale.metrics.Timer;
+import git.RateLimitState;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import utils.MetricsUtil;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * RefreshScheduler replaces the fixed 5s periodic refresh with one timer chain per path: the next refresh of a path
+ * is only scheduled once the previous one completed, so refreshes of the same path never overlap however slow git is.
+ * Each path starts at its own base interval, doubles it (up to MAX_BACKOFF_FACTOR times) every time the refresh
+ * reports unchanged data or fails, and falls back to the base interval as soon as data changes.
+ * Delays are never shorter than RateLimitState.paceMillis (spread over pacedPaths, every path sharing the same GitHub
+ * token, by default this scheduler's own paths) and get +/- JITTER so paths don't line up.
+ * Stopping cancels every pending timer, refreshes in flight complete without scheduling another one.
+ * Must be used from the owning verticle's context only.
+ */
+public class RefreshScheduler {
+
+    static final int MAX_BACKOFF_FACTOR = 8;
+    static final double JITTER = 0.1;
+
+    private final Vertx vertx;
+    private final RateLimitState rateLimitState;
+    private final int pacedPaths;
+    private final Map<String, PathSchedule> schedules = new LinkedHashMap<>();
+    private boolean running;
+
+    public RefreshScheduler(Vertx vertx, RateLimitState rateLimitState) {
+        this(vertx, rateLimitState, 0);
+    }
+
+    public RefreshScheduler(Vertx vertx, RateLimitState rateLimitState, int pacedPaths) {
+        this.vertx = vertx;
+        this.rateLimitState = rateLimitState;
+        this.pacedPaths = pacedPaths;
+    }
+
+    /**
+     * @param refresh completes with true if the data changed, false if it was unchanged (e.g. a 304).
+     */
+    public void add(String path, long baseIntervalMillis, Supplier<Future<Boolean>> refresh) {
+        schedules.put(path, new PathSchedule(path, baseIntervalMillis, refresh));
+    }
+
+    /**
+     * Delays the next start() refresh of path by delayMillis (e.g. the data is already fresh from a snapshot), later
+     * starts refresh it right away again.
+     */
+    public void deferFirstRun(String path, long delayMillis) {
+        final PathSchedule schedule = schedules.get(path);
+        if (schedule != null) {
+            schedule.firstRunDelayMillis = delayMillis;
+        }
+    }
+
+    /**
+     * Refreshes every path now (or once its deferral elapsed), then keeps each one on its own schedule.
+     */
+    public void start() {
+        running = true;
+        schedules.values().forEach(schedule -> {
+            final long delay = schedule.firstRunDelayMillis;
+            schedule.firstRunDelayMillis = 0;
+            if (delay <= 0) {
+                refreshNow(schedule.path);
+            } else if (!schedule.inFlight && schedule.timerId < 0) {
+                System.out.println("First refresh of " + schedule.path + " deferred by " + delay + "ms");
+                schedule.timerId = vertx.setTimer(withJitter(delay), id -> {
+                    schedule.timerId = -1;
+                    run(schedule);
+                });
+            }
+        });
+    }
+
+    public void stop() {
+        running = false;
+        schedules.values().forEach(schedule -> {
+            if (schedule.timerId >= 0) {
+                vertx.cancelTimer(schedule.timerId);
+                schedule.timerId = -1;
+            }
+        });
+    }
+
+    /**
+     * Refreshes path right away unless a refresh of it is already in flight.
+     */
+    public void refreshNow(String path) {
+        final PathSchedule schedule = schedules.get(path);
+        if (!running || schedule == null || schedule.inFlight) {
+            return;
+        }
+        if (schedule.timerId >= 0) {
+            vertx.cancelTimer(schedule.timerId);
+            schedule.timerId = -1;
+        }
+        run(schedule);
+    }
+
+    private void run(PathSchedule schedule) {
+        schedule.inFlight = true;
+        final Timer.Context latency = MetricsUtil.timer("refresh_latency", "path", schedule.path).time();
+        Future<Boolean> refresh;
+        try {
+            refresh = schedule.refresh.get();
+        } catch (RuntimeException e) {
+            refresh = Future.failedFuture(e);
+        }
+        refresh.onComplete(result -> {
+            latency.stop();
+            MetricsUtil.counter("refresh_results", "path", schedule.path, "result",
+                    result.failed() ? "failed" : Boolean.TRUE.equals(result.result()) ? "changed" : "unchanged").inc();
+            schedule.inFlight = false;
+            if (!running) {
+                return;
+            }
+            final boolean changed = result.succeeded() && Boolean.TRUE.equals(result.result());
+            schedule.intervalMillis = nextInterval(schedule.baseIntervalMillis, schedule.intervalMillis, changed);
+            final long delay = withJitter(Math.max(schedule.intervalMillis,
+                    rateLimitState.paceMillis(Math.max(pacedPaths, schedules.size()), System.currentTimeMillis())));
+            System.out.println("Next refresh of " + schedule.path + " in " + delay + "ms"
+                    + (result.failed() ? " (failed " + result.cause().getMessage() + ")" : changed ? "" : " (unchanged)"));
+            schedule.timerId = vertx.setTimer(delay, id -> {
+                schedule.timerId = -1;
+                run(schedule);
+            });
+        });
+    }
+
+    static long nextInterval(long baseIntervalMillis, long currentIntervalMillis, boolean changed) {
+        if (changed) {
+            return baseIntervalMillis;
+        }
+        return Math.min(currentIntervalMillis * 2, baseIntervalMillis * MAX_BACKOFF_FACTOR);
+    }
+
+    static long withJitter(long delayMillis) {
+        final long jitter = (long) (delayMillis * JITTER);
+        return Math.max(1, delayMillis + (jitter > 0 ? ThreadLocalRandom.current().nextLong(-jitter, jitter + 1) : 0));
+    }
+
+    private static class PathSchedule {
+        private final String path;
+        private final long baseIntervalMillis;
+        private final Supplier<Future<Boolean>> refresh;
+        private long intervalMillis;
+        private boolean inFlight;
+        private long timerId = -1;
+        private long firstRunDelayMillis;
+
+        private PathSchedule(String path, long baseIntervalMillis, Supplier<Future<Boolean>> refresh) {
+            this.path = path;
+            this.baseIntervalMillis = baseIntervalMillis;
+            this.refresh = refresh;
+            this.intervalMillis = baseIntervalMillis;
+        }
+    }
+}
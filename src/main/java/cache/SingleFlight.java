@@ -0,0 +1,62 @@
+package cache;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * SingleFlight deduplicates concurrent calls by key: the first caller runs the supplied call and every caller arriving
+ * while it is in flight shares its result. The key is released as soon as the call completes, so a later caller
+ * (e.g. after a failure) starts a fresh one.
+ * get(vertx, name) returns the one instance of that name shared by every verticle of a Vertx instance (through a local
+ * map), so misses of the same path on different event loops still make one call. A caller joining from another
+ * context gets its own future, completed on that context.
+ */
+public class SingleFlight<T> implements Shareable {
+
+    private static final String SINGLE_FLIGHT_LOCAL_MAP = "singleFlight";
+
+    private final Map<String, Future<T>> inFlight = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public static <T> SingleFlight<T> get(Vertx vertx, String name) {
+        LocalMap<String, SingleFlight<?>> localMap = vertx.sharedData().getLocalMap(SINGLE_FLIGHT_LOCAL_MAP);
+        return (SingleFlight<T>) localMap.computeIfAbsent(name, key -> new SingleFlight<T>());
+    }
+
+    public Future<T> execute(String key, Supplier<Future<T>> call) {
+        final Context caller = Vertx.currentContext();
+        final boolean[] started = new boolean[1];
+        final Future<T> future = inFlight.computeIfAbsent(key, k -> {
+            started[0] = true;
+            return call.get();
+        });
+        if (started[0]) {
+            future.onComplete(result -> inFlight.remove(key, future));
+            return future;
+        }
+        if (caller == null) {
+            return future;
+        }
+        final Promise<T> joined = Promise.promise();
+        future.onComplete(result -> {
+            if (Vertx.currentContext() == caller) {
+                joined.handle(result);
+            } else {
+                caller.runOnContext(v -> joined.handle(result));
+            }
+        });
+        return joined.future();
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,49 @@
+package cache;
+
+import io.vertx.core.buffer.Buffer;
+import model.CachedResponse;
+import utils.CompressionUtil;
+
+/**
+ * StorageCodec is how values are encoded in Redis, selected with STORAGE_CODEC (gzip by default, identity to store
+ * plain JSON). Decoding tolerates values written by the other codec, so switching codec needs no flush.
+ * With gzip, CachedResponse bodies are stored exactly as they are served to clients accepting gzip.
+ */
+public enum StorageCodec {
+    identity {
+        @Override
+        public Buffer encode(Buffer plain) {
+            return plain;
+        }
+    },
+    gzip {
+        @Override
+        public Buffer encode(Buffer plain) {
+            return CompressionUtil.gzip(plain);
+        }
+    };
+
+    public static final String STORAGE_CODEC = "STORAGE_CODEC";
+
+    public abstract Buffer encode(Buffer plain);
+
+    public Buffer decode(Buffer stored) {
+        return CompressionUtil.isGzip(stored) ? CompressionUtil.gunzip(stored) : stored;
+    }
+
+    public Buffer encode(CachedResponse response) {
+        return this == gzip ? response.getGzipBody() : encode(response.getBody());
+    }
+
+    public CachedResponse decode(Buffer stored, String etag, long lastModified) {
+        return CachedResponse.restore(CompressionUtil.isGzip(stored) ? stored : CompressionUtil.gzip(stored), etag, lastModified);
+    }
+
+    public static StorageCodec fromEnv() {
+        return named(System.getenv(STORAGE_CODEC));
+    }
+
+    static StorageCodec named(String name) {
+        return name == null || name.isBlank() ? gzip : valueOf(name.trim().toLowerCase());
+    }
+}
@@ -0,0 +1,75 @@
+package git;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.ext.web.client.HttpRequest;
+import io.vertx.ext.web.client.HttpResponse;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ConditionalRequestStore remembers the upstream ETag / Last-Modified, pagination link and body of every refreshed
+ * path, page included, so the next refresh can be sent as a conditional GET and a 304 page can still be assembled
+ * into a full paginated result. GitHub does not count 304 against the rate limit.
+ * One store is shared by every GitClientManager instance of a Vertx instance (through a local map).
+ */
+public class ConditionalRequestStore implements Shareable {
+
+    private static final String CONDITIONAL_REQUEST_LOCAL_MAP = "conditionalRequestStore";
+
+    private final Map<String, Validators> validatorsByPath = new ConcurrentHashMap<>();
+
+    public static ConditionalRequestStore get(Vertx vertx) {
+        LocalMap<String, ConditionalRequestStore> localMap = vertx.sharedData().getLocalMap(CONDITIONAL_REQUEST_LOCAL_MAP);
+        return localMap.computeIfAbsent(CONDITIONAL_REQUEST_LOCAL_MAP, key -> new ConditionalRequestStore());
+    }
+
+    public void applyTo(HttpRequest<Buffer> request, String path) {
+        final Validators validators = validatorsByPath.get(path);
+        if (validators == null) {
+            return;
+        }
+        if (validators.getEtag() != null) {
+            request.putHeader("If-None-Match", validators.getEtag());
+        }
+        if (validators.getLastModified() != null) {
+            request.putHeader("If-Modified-Since", validators.getLastModified());
+        }
+    }
+
+    public void update(String path, HttpResponse<Buffer> response) {
+        if (response.statusCode() != 200) {
+            return;
+        }
+        final String etag = response.getHeader("ETag");
+        final String lastModified = response.getHeader("Last-Modified");
+        if (etag == null && lastModified == null) {
+            validatorsByPath.remove(path);
+        } else {
+            validatorsByPath.put(path, new Validators(etag, lastModified, response.getHeader("link"), response.body()));
+        }
+    }
+
+    /**
+     * A 304 carries neither body nor a reliable link header, both come from the last 200 recorded for the path.
+     */
+    public UpstreamResponse notModified(String path) {
+        final Validators validators = validatorsByPath.get(path);
+        return validators == null ? new UpstreamResponse(304, null, null) :
+                new UpstreamResponse(304, validators.getBody(), validators.getLink());
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class Validators {
+        private final String etag;
+        private final String lastModified;
+        private final String link;
+        private final Buffer body;
+    }
+}
@@ -9,86 +9,160 @@ import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Promise;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.eventbus.Message;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpVersion;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
-import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.WebClient;
 import io.vertx.ext.web.client.WebClientOptions;
-import io.vertx.redis.client.Response;
-import org.apache.logging.log4j.util.Strings;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import utils.MetricsUtil;
 
-import java.util.Arrays;
-import java.util.concurrent.atomic.AtomicReference;
+import java.net.URI;
 
-import static utils.ApiPathUtil.CACHED_PAGINATED_GET;
 
 /**
  * GitClientManager is a worker verticle with its own dedicated worker thread pool, which will listen to event bus
  * only for GITHUB_EVENT_ADDRESS and dispatch incoming request to external GITHUB_API_URL and return api response.
+ * GITHUB_PAGINATED_EVENT_ADDRESS returns every page of a paginated path assembled into one array, pages after the
+ * first are fetched concurrently (GITHUB_PAGE_CONCURRENCY at most) by the PaginatedFetcher.
+ * Requests flagged with CONDITIONAL_HEADER (the periodic refresh) are sent with the last seen ETag / Last-Modified,
+ * an upstream 304 is replied with STATUS_HEADER set to 304 and an empty body so callers can skip their cache writes.
+ * The upstream Cache-Control travels back in CACHE_CONTROL_HEADER, rate limit headers are recorded in RateLimitState.
+ * Upstream connections are TLS on 443, kept alive and pooled, HTTP/2 when GITHUB_HTTP2=true. GITHUB_MAX_POOL_SIZE
+ * bounds this client's pool, and in stream mode the pools of every CachingService's StreamingProxyHandler together.
+ * When git can't be reached at all the request is failed with 502, never replied.
  */
 @Component
 public class GitClientManager extends AbstractVerticle {
 
     public static final String GITHUB_API_URL = "api.github.com";
+    public static final String GITHUB_BASE_URL = "GITHUB_BASE_URL";
+    private static final String DEFAULT_BASE_URL = "https://" + GITHUB_API_URL;
     public static final String GITHUB_API_TOKEN = "GITHUB_API_TOKEN";
     public static final String GITHUB_EVENT_ADDRESS = "gitAPI";
+    public static final String GITHUB_PAGINATED_EVENT_ADDRESS = "gitAPIPaginated";
+    public static final String GITHUB_PAGE_CONCURRENCY = "GITHUB_PAGE_CONCURRENCY";
+    private static final int DEFAULT_PAGE_CONCURRENCY = 4;
+    public static final String CONDITIONAL_HEADER = "conditional";
+    public static final String STATUS_HEADER = "status";
+    public static final String CACHE_CONTROL_HEADER = "cacheControl";
+    public static final String GITHUB_HTTP2 = "GITHUB_HTTP2";
+    public static final String GITHUB_MAX_POOL_SIZE = "GITHUB_MAX_POOL_SIZE";
+    public static final int DEFAULT_MAX_POOL_SIZE = 32;
 
+    private ConditionalRequestStore conditionalRequestStore;
+    private RateLimitState rateLimitState;
+    private final PaginatedFetcher paginatedFetcher = new PaginatedFetcher(this::fetch, DEFAULT_PAGE_CONCURRENCY);
     private WebClient client;
     private String apiToken;
 
     @Override
-    public void start() {
+    public void start(Promise<Void> startPromise) {
+        conditionalRequestStore = ConditionalRequestStore.get(vertx);
+        rateLimitState = RateLimitState.get(vertx);
         ConfigStoreOptions env = new ConfigStoreOptions()
                 .setType("env")
-                .setConfig(new JsonObject().put("keys", new JsonArray().add(GITHUB_API_TOKEN)));
-        ConfigRetriever retriever = ConfigRetriever.create(vertx, new ConfigRetrieverOptions().addStore(env));
-        retriever.getConfig().onComplete(config -> apiToken = config.succeeded()
-                && config.result() != null
-                && !config.result().getString(GITHUB_API_TOKEN).isBlank() ?
-                config.result().getString(GITHUB_API_TOKEN) : "");
-        vertx.eventBus().<String>consumer(GITHUB_EVENT_ADDRESS).handler(handleGitAPIRequest());
-        WebClientOptions options = new WebClientOptions()
-                .setUserAgent("Cache-App/1");
-        options.setKeepAlive(false);
-        client = WebClient.create(vertx, options);
+                .setConfig(new JsonObject().put("keys", new JsonArray().add(GITHUB_API_TOKEN).add(GITHUB_PAGE_CONCURRENCY)
+                        .add(GITHUB_HTTP2).add(GITHUB_MAX_POOL_SIZE).add(GITHUB_BASE_URL)));
+        // the deployment config first, env overrides it
+        ConfigStoreOptions deployment = new ConfigStoreOptions().setType("json").setConfig(config());
+        ConfigRetriever retriever = ConfigRetriever.create(vertx, new ConfigRetrieverOptions().addStore(deployment).addStore(env));
+        retriever.getConfig().onComplete(config -> {
+            final JsonObject result = config.succeeded() && config.result() != null ? config.result() : new JsonObject();
+            apiToken = result.getString(GITHUB_API_TOKEN, "");
+            if (result.getInteger(GITHUB_PAGE_CONCURRENCY) != null) {
+                paginatedFetcher.setConcurrency(result.getInteger(GITHUB_PAGE_CONCURRENCY));
+            }
+            WebClientOptions options = new WebClientOptions()
+                    .setUserAgent("Cache-App/1");
+            configureUpstream(options, result.getString(GITHUB_BASE_URL), result.getBoolean(GITHUB_HTTP2, false),
+                    result.getInteger(GITHUB_MAX_POOL_SIZE, DEFAULT_MAX_POOL_SIZE));
+            client = WebClient.create(vertx, options);
+            vertx.eventBus().<String>consumer(GITHUB_EVENT_ADDRESS).handler(handleGitAPIRequest());
+            vertx.eventBus().<String>consumer(GITHUB_PAGINATED_EVENT_ADDRESS).handler(handleGitPaginatedAPIRequest());
+            startPromise.complete();
+        });
     }
 
-    private Handler<Message<String>> handleGitAPIRequest() {
+    /**
+     * Pooled keep-alive TLS connections to GITHUB_API_URL, shared by the buffered WebClient and the streaming proxy.
+     * Plain port 80 costs a redirect and a fresh handshake on every call.
+     * GITHUB_BASE_URL (e.g. http://localhost:9090) points both at a stand-in instead, for load tests.
+     */
+    public static <T extends HttpClientOptions> T configureUpstream(T options, String baseUrl, boolean http2, int maxPoolSize) {
+        final URI base = URI.create(baseUrl == null || baseUrl.isBlank() ? DEFAULT_BASE_URL : baseUrl);
+        final boolean ssl = !"http".equalsIgnoreCase(base.getScheme());
+        options.setDefaultHost(base.getHost())
+                .setDefaultPort(base.getPort() > 0 ? base.getPort() : ssl ? 443 : 80)
+                .setSsl(ssl)
+                .setKeepAlive(true)
+                .setMaxPoolSize(maxPoolSize)
+                .setPipelining(false);
+        if (http2) {
+            options.setProtocolVersion(HttpVersion.HTTP_2)
+                    .setUseAlpn(true)
+                    .setHttp2MaxPoolSize(2);
+        }
+        return options;
+    }
 
+    private Handler<Message<String>> handleGitAPIRequest() {
         return msg -> {
             System.out.println("Calling GIT for " + msg.body());
-            // Send a GET request to GITHUB_API_URL and publish an event to continue with next page in case of a paginated result
-            client
-                    .get(GITHUB_API_URL, msg.body())
-                    .putHeader("Authorization", "Bearer " + apiToken)
-                    .send()
-                    .onSuccess(response -> {
-                        AtomicReference<String> link = new AtomicReference<>(response.getHeader("link"));
-                        if (Strings.isNotBlank(link.get())) {
-                            String[] pageSplit = link.get().split(",");
-                            for (String nextPage : pageSplit) {
-                                if (nextPage.contains("next")) {
-                                    final String nextPageURL = nextPage.split(">")[0].substring(1);
-                                    String validURL = nextPageURL.replace("<", "");
-                                    final String path = validURL.substring(22).trim();
-                                    vertx.eventBus().request(CACHED_PAGINATED_GET, path, result -> {
-                                        if (result.succeeded()) {
-                                            System.out.println("Next Page call succeeded for " + path + " :: " + result.succeeded());
-                                        }
-                                    });
-                                }
-                            }
-                        }
-                        msg.reply(response.bodyAsString());
-                    })
+            fetch(msg.body(), Boolean.parseBoolean(msg.headers().get(CONDITIONAL_HEADER)))
+                    .onSuccess(response -> replyWith(msg, response))
                     .onFailure(err -> {
                         System.out.println("Something went wrong " + err.getMessage());
-                        msg.reply("Failed to connect to Git" + err.getCause());
+                        msg.fail(HttpStatus.BAD_GATEWAY.value(), "Failed to connect to Git " + err.getMessage());
                     });
+        };
+    }
 
+    private Handler<Message<String>> handleGitPaginatedAPIRequest() {
+        return msg -> {
+            System.out.println("Calling GIT for all pages of " + msg.body());
+            paginatedFetcher.fetchAll(msg.body(), Boolean.parseBoolean(msg.headers().get(CONDITIONAL_HEADER)))
+                    .onSuccess(response -> replyWith(msg, response))
+                    .onFailure(err -> {
+                        System.out.println("Something went wrong " + err.getMessage());
+                        msg.fail(HttpStatus.BAD_GATEWAY.value(), "Failed to fetch all pages from Git " + err.getMessage());
+                    });
         };
     }
+
+    private Future<UpstreamResponse> fetch(String path, boolean conditional) {
+        HttpRequest<Buffer> request = client
+                .get(path)
+                .putHeader("Authorization", "Bearer " + apiToken);
+        if (conditional) {
+            conditionalRequestStore.applyTo(request, path);
+        }
+        return MetricsUtil.timed(MetricsUtil.timer("github_request_latency"), request::send).map(response -> {
+            MetricsUtil.counter("github_responses", "status", String.valueOf(response.statusCode())).inc();
+            rateLimitState.update(response.headers());
+            if (response.statusCode() == HttpResponseStatus.NOT_MODIFIED.code()) {
+                return conditionalRequestStore.notModified(path);
+            }
+            if (conditional) {
+                conditionalRequestStore.update(path, response);
+            }
+            return new UpstreamResponse(response.statusCode(), response.body(), response.getHeader("link"),
+                    response.getHeader("Cache-Control"));
+        });
+    }
+
+    private void replyWith(Message<String> msg, UpstreamResponse response) {
+        // bytes as received, the paginated consumer parses them without a String round trip
+        final Buffer body = response.isNotModified() || response.getBody() == null ? Buffer.buffer() : response.getBody();
+        final DeliveryOptions options = new DeliveryOptions().addHeader(STATUS_HEADER, String.valueOf(response.getStatusCode()));
+        if (response.getCacheControl() != null) {
+            options.addHeader(CACHE_CONTROL_HEADER, response.getCacheControl());
+        }
+        msg.reply(body, options);
+    }
 }
@@ -0,0 +1,119 @@
+package git;
+
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+
+/**
+ * PaginatedFetcher reads rel="last" from the first page of a paginated GitHub path, fetches the remaining pages
+ * concurrently (never more than concurrency in flight) and assembles all of them into a single JSON array.
+ * The assembled response is 304 only when every single page was 304.
+ */
+public class PaginatedFetcher {
+
+    public static final int PER_PAGE = 100; // GitHub maximum, fewest round trips per refresh
+    private static final String LAST_RELATION = "rel=\"last\"";
+
+    private final BiFunction<String, Boolean, Future<UpstreamResponse>> pageFetcher;
+    private volatile int concurrency;
+
+    public PaginatedFetcher(BiFunction<String, Boolean, Future<UpstreamResponse>> pageFetcher, int concurrency) {
+        this.pageFetcher = pageFetcher;
+        setConcurrency(concurrency);
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    public Future<UpstreamResponse> fetchAll(String path, boolean conditional) {
+        return fetchPage(path, 1, conditional).compose(firstPage -> {
+            final int lastPage = lastPage(firstPage.getLink());
+            final AtomicReferenceArray<UpstreamResponse> pages = new AtomicReferenceArray<>(lastPage);
+            pages.set(0, firstPage);
+            final AtomicInteger nextPage = new AtomicInteger(2);
+            // workers all start right away, chaining them only waits for each one in turn
+            Future<Void> workers = Future.succeededFuture();
+            for (int i = 0; i < Math.min(concurrency, lastPage - 1); i++) {
+                final Future<Void> worker = fetchRemaining(path, conditional, nextPage, lastPage, pages);
+                workers = workers.compose(done -> worker);
+            }
+            return workers.map(done -> assemble(pages));
+        });
+    }
+
+    private Future<Void> fetchRemaining(String path, boolean conditional, AtomicInteger nextPage, int lastPage,
+                                        AtomicReferenceArray<UpstreamResponse> pages) {
+        final int page = nextPage.getAndIncrement();
+        if (page > lastPage) {
+            return Future.succeededFuture();
+        }
+        return fetchPage(path, page, conditional).compose(response -> {
+            pages.set(page - 1, response);
+            return fetchRemaining(path, conditional, nextPage, lastPage, pages);
+        });
+    }
+
+    private Future<UpstreamResponse> fetchPage(String path, int page, boolean conditional) {
+        final String pagePath = pagePath(path, page);
+        return pageFetcher.apply(pagePath, conditional).compose(response -> response.isSuccessful() && response.getBody() != null ?
+                Future.succeededFuture(response) :
+                Future.failedFuture("Git page " + pagePath + " failed with status " + response.getStatusCode()));
+    }
+
+    private static UpstreamResponse assemble(AtomicReferenceArray<UpstreamResponse> pages) {
+        final Buffer body = Buffer.buffer().appendString("[");
+        boolean allNotModified = true;
+        boolean empty = true;
+        for (int i = 0; i < pages.length(); i++) {
+            final UpstreamResponse page = pages.get(i);
+            allNotModified &= page.isNotModified();
+            // the elements between the page's outer brackets, copied as bytes
+            final Buffer content = page.getBody();
+            int start = skipWhitespace(content, 0, 1) + 1;
+            int end = skipWhitespace(content, content.length() - 1, -1);
+            start = skipWhitespace(content, start, 1);
+            end = skipWhitespace(content, end - 1, -1) + 1;
+            if (start < end) {
+                body.appendString(empty ? "" : ",").appendBuffer(content, start, end - start);
+                empty = false;
+            }
+        }
+        body.appendString("]");
+        return new UpstreamResponse(allNotModified ? 304 : 200, body, pages.get(0).getLink());
+    }
+
+    private static int skipWhitespace(Buffer buffer, int index, int step) {
+        while (index >= 0 && index < buffer.length() && Character.isWhitespace(buffer.getByte(index))) {
+            index += step;
+        }
+        return index;
+    }
+
+    public static String pagePath(String path, int page) {
+        return path + (path.contains("?") ? "&" : "?") + "per_page=" + PER_PAGE + "&page=" + page;
+    }
+
+    /**
+     * @return the page number of the rel="last" entry of a GitHub link header, 1 if there is none.
+     */
+    public static int lastPage(String link) {
+        if (link == null || link.isBlank()) {
+            return 1;
+        }
+        for (String relation : link.split(",")) {
+            if (relation.contains(LAST_RELATION)) {
+                final String url = relation.substring(relation.indexOf('<') + 1, relation.indexOf('>'));
+                for (String param : url.substring(url.indexOf('?') + 1).split("&")) {
+                    if (param.startsWith("page=")) {
+                        return Integer.parseInt(param.substring("page=".length()));
+                    }
+                }
+            }
+        }
+        return 1;
+    }
+}
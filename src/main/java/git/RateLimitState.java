@@ -0,0 +1,77 @@
+package git;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import utils.MetricsUtil;
+
+/**
+ * RateLimitState is the last GitHub rate limit seen on any upstream response (X-RateLimit-Limit / -Remaining / -Reset).
+ * One instance is shared by every verticle of a Vertx instance (through a local map), written by the git clients and
+ * read by the RefreshScheduler to pace refreshes so they never eat the RESERVE left for proxied traffic.
+ */
+public class RateLimitState implements Shareable {
+
+    private static final String RATE_LIMIT_LOCAL_MAP = "rateLimitState";
+    public static final int RESERVE = 100;
+
+    private volatile long limit = -1;
+    private volatile long remaining = -1;
+    private volatile long resetEpochSeconds = -1;
+
+    public static RateLimitState get(Vertx vertx) {
+        LocalMap<String, RateLimitState> localMap = vertx.sharedData().getLocalMap(RATE_LIMIT_LOCAL_MAP);
+        return localMap.computeIfAbsent(RATE_LIMIT_LOCAL_MAP, key -> {
+            final RateLimitState state = new RateLimitState();
+            MetricsUtil.gauge("github_rate_limit_remaining", state::getRemaining);
+            MetricsUtil.gauge("github_rate_limit_limit", state::getLimit);
+            MetricsUtil.gauge("github_rate_limit_reset_seconds", state::getResetEpochSeconds);
+            return state;
+        });
+    }
+
+    public void update(MultiMap headers) {
+        final String remainingHeader = headers.get("X-RateLimit-Remaining");
+        final String resetHeader = headers.get("X-RateLimit-Reset");
+        if (remainingHeader == null || resetHeader == null) {
+            return;
+        }
+        try {
+            final String limitHeader = headers.get("X-RateLimit-Limit");
+            limit = limitHeader == null ? limit : Long.parseLong(limitHeader);
+            remaining = Long.parseLong(remainingHeader);
+            resetEpochSeconds = Long.parseLong(resetHeader);
+        } catch (NumberFormatException e) {
+            System.out.println("Ignoring malformed rate limit headers " + e.getMessage());
+        }
+    }
+
+    /**
+     * Minimum delay before the next refresh of one of refreshedPaths: spreads what is left above RESERVE evenly until
+     * the reset, or waits for the reset once the reserve is reached. 0 while no rate limit has been seen.
+     */
+    public long paceMillis(int refreshedPaths, long now) {
+        if (remaining < 0) {
+            return 0;
+        }
+        final long untilReset = Math.max(0, resetEpochSeconds * 1000 - now);
+        final long budget = remaining - RESERVE;
+        if (budget <= 0) {
+            return untilReset;
+        }
+        return untilReset * refreshedPaths / budget;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public long getRemaining() {
+        return remaining;
+    }
+
+    public long getResetEpochSeconds() {
+        return resetEpochSeconds;
+    }
+}
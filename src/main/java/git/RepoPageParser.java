@@ -0,0 +1,152 @@
+package git;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import model.RepoRecord;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RepoPageParser reads a GitHub collection (an array of objects, e.g. the assembled pages of /orgs/{org}/repos) in a
+ * single pass over Jackson tokens, without building a JsonArray: top level fields of each element are picked into
+ * a RepoRecord, nested ones are only copied, and each element is sliced out of the input untouched (raw) and
+ * re-emitted token by token in the response format (rendered, byte for byte what encodePrettily / encode produce).
+ * Thread safe, instances only hold the format.
+ */
+public class RepoPageParser {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final boolean prettyPrint;
+
+    public RepoPageParser(boolean prettyPrint) {
+        this.prettyPrint = prettyPrint;
+    }
+
+    /**
+     * @throws DecodeException if body is not a JSON array of objects.
+     */
+    public List<RepoRecord> parseArray(Buffer body) {
+        try (JsonParser parser = JSON_FACTORY.createParser(body.getBytes())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new DecodeException("Expected a JSON array");
+            }
+            final List<RepoRecord> records = new ArrayList<>();
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                final int sizeHint = records.isEmpty() ? 0 : records.get(records.size() - 1).getRendered().length();
+                records.add(parseObject(parser, body, records.size(), sizeHint));
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new DecodeException("Expected a JSON object, got " + token);
+            }
+            return records;
+        } catch (IOException e) {
+            throw new DecodeException("Failed to decode collection: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * One element on its own, e.g. a collection member stored in Redis.
+     *
+     * @throws DecodeException if element is not a JSON object.
+     */
+    public RepoRecord parseObject(Buffer element) {
+        try (JsonParser parser = JSON_FACTORY.createParser(element.getBytes())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new DecodeException("Expected a JSON object");
+            }
+            return parseObject(parser, element, 0, element.length());
+        } catch (IOException e) {
+            throw new DecodeException("Failed to decode element: " + e.getMessage(), e);
+        }
+    }
+
+    /*
+     * parser is on the element's START_OBJECT, returns with it on the matching END_OBJECT. The element is rendered
+     * straight into its own Buffer, sized after sizeHint (e.g. the previous element) so it rarely grows.
+     */
+    private RepoRecord parseObject(JsonParser parser, Buffer input, int index, int sizeHint) throws IOException {
+        final int start = (int) parser.getTokenLocation().getByteOffset();
+        final Buffer rendered = Buffer.buffer(sizeHint + sizeHint / 8 + 64);
+        long id = index;
+        String fullName = null;
+        String language = null;
+        long forks = 0;
+        long openIssues = 0;
+        long stars = 0;
+        long watchers = 0;
+        long size = 0;
+        long updatedAt = 0;
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(new BufferOutputStream(rendered))) {
+            if (prettyPrint) {
+                generator.useDefaultPrettyPrinter();
+            }
+            generator.copyCurrentEvent(parser);
+            int depth = 1;
+            while (depth > 0) {
+                final JsonToken token = parser.nextToken();
+                if (token == null) {
+                    throw new DecodeException("Unexpected end of input");
+                }
+                generator.copyCurrentEvent(parser);
+                if (token.isStructStart()) {
+                    depth++;
+                } else if (token.isStructEnd()) {
+                    depth--;
+                } else if (depth == 1 && token != JsonToken.VALUE_NULL && token.isScalarValue()) {
+                    switch (parser.currentName()) {
+                        case "id": id = parser.getValueAsLong(id); break;
+                        case "full_name": fullName = parser.getText(); break;
+                        case "language": language = parser.getText(); break;
+                        case "forks": forks = parser.getValueAsLong(); break;
+                        case "open_issues": openIssues = parser.getValueAsLong(); break;
+                        case "stargazers_count": stars = parser.getValueAsLong(); break;
+                        case "watchers_count": watchers = parser.getValueAsLong(); break;
+                        case "size": size = parser.getValueAsLong(); break;
+                        case "updated_at": updatedAt = epochMillis(parser.getText()); break;
+                        default: break;
+                    }
+                }
+            }
+        }
+        final int end = (int) parser.getCurrentLocation().getByteOffset();
+        return new RepoRecord(id, fullName, language, forks, openIssues, stars, watchers, size, updatedAt,
+                input.slice(start, end), rendered);
+    }
+
+    private static long epochMillis(String timestamp) {
+        try {
+            return Instant.parse(timestamp).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0;
+        }
+    }
+
+    private static class BufferOutputStream extends OutputStream {
+        private final Buffer buffer;
+
+        private BufferOutputStream(Buffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public void write(int b) {
+            buffer.appendByte((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            buffer.appendBytes(bytes, offset, length);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package git;
+
+import io.vertx.core.buffer.Buffer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * UpstreamResponse is what GitClientManager keeps of a GitHub response: status, body, the pagination link and the
+ * Cache-Control directives.
+ * For a 304 the body is the one recorded with the last 200 for the same path.
+ */
+@Getter
+@AllArgsConstructor
+public class UpstreamResponse {
+    private final int statusCode;
+    private final Buffer body;
+    private final String link;
+    private final String cacheControl;
+
+    public UpstreamResponse(int statusCode, Buffer body, String link) {
+        this(statusCode, body, link, null);
+    }
+
+    public boolean isNotModified() {
+        return statusCode == 304;
+    }
+
+    public boolean isSuccessful() {
+        return statusCode == 200 || isNotModified();
+    }
+}
@@ -0,0 +1,126 @@
+package model;
+
+import com.google.common.hash.Hashing;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.Shareable;
+import lombok.AccessLevel;
+import lombok.Getter;
+import utils.CompressionUtil;
+
+import java.lang.ref.SoftReference;
+
+/**
+ * CachedResponse is a ready-to-send response body, rendered once on the refresh path together with its content hash
+ * (used as ETag) and the time the content last changed (used as Last-Modified).
+ * The body is only kept gzipped: it is sent as is to clients accepting gzip (with getGzipEtag, the gzip representation
+ * being a different entity) and only decompressed for the others. The plain body is then kept softly reachable, so hot
+ * entries are decompressed once and the GC can still drop the copy under memory pressure (NearCache only weighs the
+ * gzipped body).
+ * Entries with an expiry also carry freshUntil / staleUntil (epoch millis): fresh ones are served as is, stale ones
+ * are still served while a background revalidation runs, past staleUntil they are unusable. Without an expiry both
+ * are Long.MAX_VALUE.
+ * Instances are immutable (the memoized plain body aside), so they are shared by reference between verticles.
+ */
+@Getter
+public class CachedResponse implements Shareable {
+
+    public static final String RESPONSE_FORMAT = "RESPONSE_FORMAT";
+    private static final boolean PRETTY_PRINT = !"compact".equalsIgnoreCase(System.getenv(RESPONSE_FORMAT));
+
+    private final Buffer gzipBody;
+    private final String etag;
+    private final long lastModified;
+    private final long freshUntil;
+    private final long staleUntil;
+    // the decompressed body once known, handed on to the copies made withFreshness
+    @Getter(AccessLevel.NONE)
+    private volatile SoftReference<Buffer> body;
+
+    private CachedResponse(Buffer body, long lastModified) {
+        this(CompressionUtil.gzip(body), "\"" + Hashing.murmur3_128().hashBytes(body.getBytes()).toString() + "\"",
+                lastModified, Long.MAX_VALUE, Long.MAX_VALUE, new SoftReference<>(body));
+    }
+
+    private CachedResponse(Buffer gzipBody, String etag, long lastModified, long freshUntil, long staleUntil,
+                           SoftReference<Buffer> body) {
+        this.gzipBody = gzipBody;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.freshUntil = freshUntil;
+        this.staleUntil = staleUntil;
+        this.body = body;
+    }
+
+    public static CachedResponse of(String renderedBody) {
+        return new CachedResponse(Buffer.buffer(renderedBody), System.currentTimeMillis());
+    }
+
+    public static CachedResponse ofJsonObject(String json) {
+        final JsonObject jsonObject = new JsonObject(json);
+        return of(PRETTY_PRINT ? jsonObject.encodePrettily() : jsonObject.encode());
+    }
+
+    public static CachedResponse ofJsonArray(String json) {
+        return ofJsonArray(new JsonArray(json));
+    }
+
+    public static CachedResponse ofJsonArray(JsonArray jsonArray) {
+        return of(PRETTY_PRINT ? jsonArray.encodePrettily() : jsonArray.encode());
+    }
+
+    public static CachedResponse of(Buffer renderedBody, long lastModified) {
+        return new CachedResponse(renderedBody, lastModified);
+    }
+
+    public static boolean isPrettyPrint() {
+        return PRETTY_PRINT;
+    }
+
+    /**
+     * Rebuilds a response stored by its parts (e.g. in Redis), without recompressing nor rehashing the body.
+     */
+    public static CachedResponse restore(Buffer gzipBody, String etag, long lastModified) {
+        return new CachedResponse(gzipBody, etag, lastModified, Long.MAX_VALUE, Long.MAX_VALUE, new SoftReference<>(null));
+    }
+
+    /**
+     * The plain body, decompressed on first use. Racing callers may both decompress, either copy is kept.
+     */
+    public Buffer getBody() {
+        Buffer plain = body.get();
+        if (plain == null) {
+            plain = CompressionUtil.gunzip(gzipBody);
+            body = new SoftReference<>(plain);
+        }
+        return plain;
+    }
+
+    public String getGzipEtag() {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    /**
+     * Same body, ETag and Last-Modified with a new freshness window.
+     */
+    public CachedResponse withFreshness(long freshUntil, long staleUntil) {
+        return new CachedResponse(gzipBody, etag, lastModified, freshUntil, staleUntil, body);
+    }
+
+    public boolean isFresh(long now) {
+        return now < freshUntil;
+    }
+
+    public boolean isUsable(long now) {
+        return now < staleUntil;
+    }
+
+    public boolean sameContentAs(CachedResponse other) {
+        return other != null && etag.equals(other.etag);
+    }
+
+    public int weight() {
+        return gzipBody.length();
+    }
+}
@@ -0,0 +1,47 @@
+package model;
+
+import io.vertx.core.buffer.Buffer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import utils.CustomViewsUtil.VIEW_COLUMNS;
+
+/**
+ * RepoRecord is one element of a GitHub collection page as read by RepoPageParser: the fields the leaderboard and the
+ * view engine need as primitives, the element bytes exactly as GitHub sent them (raw, what is stored in Redis) and
+ * the same element rendered in RESPONSE_FORMAT (what PagedCollection.of joins into the served body).
+ * Elements of other collections (e.g. members) only carry id, raw and rendered.
+ */
+@Getter
+@AllArgsConstructor
+public class RepoRecord {
+    private final long id;
+    private final String fullName;
+    private final String language;
+    private final long forks;
+    private final long openIssues;
+    private final long stars;
+    private final long watchers;
+    private final long size;
+    private final long updatedAt; // epoch millis
+    private final Buffer raw;
+    private final Buffer rendered;
+
+    public long value(VIEW_COLUMNS column) {
+        switch (column) {
+            case forks:
+                return forks;
+            case stars:
+                return stars;
+            case watchers:
+                return watchers;
+            case size:
+                return size;
+            case open_issues:
+                return openIssues;
+            case last_updated:
+                return updatedAt;
+            default:
+                throw new IllegalArgumentException("Unknown view column " + column);
+        }
+    }
+}
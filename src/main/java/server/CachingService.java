@@ -1,13 +1,24 @@
 package server;
 
+import cache.NearCache;
+import cache.ProxyResponseCache;
+import git.GitClientManager;
+import git.RepoPageParser;
 import io.vertx.config.ConfigRetriever;
 import io.vertx.config.ConfigRetrieverOptions;
 import io.vertx.config.ConfigStoreOptions;
+import com.codahale.metrics.Timer;
 import io.vertx.core.AbstractVerticle;
-import io.vertx.core.DeploymentOptions;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
 import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpMethod;
 import io.vertx.core.http.HttpServer;
+import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.Route;
@@ -15,17 +26,44 @@ import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.BodyHandler;
 import lombok.NoArgsConstructor;
+import model.CachedResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 import utils.ApiPathUtil;
+import utils.LocalReferenceCodec;
+import utils.MetricsUtil;
+import utils.PrometheusFormatter;
+import view.PagedCollection;
+import view.PagedCollections;
+import view.RepoViewEngine;
+import view.ViewQuery;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static utils.ApiPathUtil.CACHED_PAGINATED_GET;
+import static utils.ApiPathUtil.CUSTOM_BATCH_GET;
 import static utils.ApiPathUtil.CUSTOM_GET;
 import static utils.ApiPathUtil.HEALTH_CHECK_PATH;
+import static utils.ApiPathUtil.ORG_VIEW_PREFIX;
 import static utils.ApiPathUtil.CACHED_GET;
 import static utils.ApiPathUtil.PROXY_GET;
+import static utils.ApiPathUtil.VIEW_BATCH_PATH;
+import static utils.ApiPathUtil.VIEW_ENGINE_PATH;
 
 
 @Component
@@ -33,6 +71,24 @@ import static utils.ApiPathUtil.PROXY_GET;
 public class
 CachingService extends AbstractVerticle {
 
+    public static final String EVENT_BUS_MODE = "EVENT_BUS_MODE";
+    private static final String EVENT_BUS_MODE_DIRECT = "direct";
+    public static final String PROXY_MODE = "PROXY_MODE";
+    private static final String PROXY_MODE_STREAM = "stream";
+    public static final String PAGE_PARAM = "page";
+    public static final String PER_PAGE_PARAM = "per_page";
+    public static final String FIELDS_PARAM = "fields";
+    public static final String BATCH_QUERY_PARAM = "q";
+    private static final String ORG_PARAM = "org";
+    private static final String LINK_HEADER = "Link";
+
+    private NearCache nearCache;
+    private ProxyResponseCache proxyResponseCache;
+    private PagedCollections pagedCollections;
+    private final RepoPageParser repoPageParser = new RepoPageParser(CachedResponse.isPrettyPrint());
+    private boolean directEventBus;
+    private StreamingProxyHandler streamingProxy;
+
     public CachingService(Vertx vertx) {
         this.vertx = vertx;
     }
@@ -41,11 +97,17 @@ CachingService extends AbstractVerticle {
     @Override
     public void start() throws Exception {
         super.start();
+        nearCache = NearCache.get(vertx);
+        proxyResponseCache = ProxyResponseCache.get(vertx);
+        pagedCollections = PagedCollections.get(vertx);
+        LocalReferenceCodec.register(vertx, CachedResponse.class);
         final Router router = Router.router(vertx);
         router.route().handler(BodyHandler.create());// Global Handler to generate Routing context
+        router.route().handler(this::timeRoute);
 
-        // 1. Add /healthCheck path
+        // 1. Add /healthCheck and /metrics path
         addHealthCheckRoute(router);
+        addMetricsRoute(router);
 
         // 2. Add all Cached Route
         addCachedGETRoute(router, ApiPathUtil.PROXY_PATH_REFRESH.values());
@@ -53,18 +115,39 @@ CachingService extends AbstractVerticle {
         // 2. Add all Cached Route required Pagination
         addCachedPaginatedGETRoute(router, ApiPathUtil.PROXY_PATH_PAGINATED_REFRESH.values());
 
-        // 3. Add all Custom View Route
+        // 3. Add all Custom View Route, per org under /orgs/:org and for the first org of ORGS as is
         addCustomViewGETRoute(router, ApiPathUtil.VIEW_PATH.values());
 
+        // 3. Add batch of views in one document (/view/batch?q=bottom:5:stars,bottom:10:forks)
+        addViewBatchGETRoute(router);
+
+        // 3. Add generic in-memory view engine Route (any direction / column / filter)
+        addViewEngineGETRoute(router);
+
         // 4. Add any Proxy Route
         addProxyGETRoute(router);
 
         ConfigStoreOptions env = new ConfigStoreOptions()
                 .setType("env")
-                .setConfig(new JsonObject().put("keys", new JsonArray().add("APP_PORT")));
+                .setConfig(new JsonObject().put("keys", new JsonArray().add("APP_PORT").add(EVENT_BUS_MODE).add(PROXY_MODE)
+                        .add(GitClientManager.GITHUB_API_TOKEN).add(GitClientManager.GITHUB_HTTP2).add(GitClientManager.GITHUB_BASE_URL)
+                        .add(GitClientManager.GITHUB_MAX_POOL_SIZE)));
 
         ConfigRetriever retriever = ConfigRetriever.create(vertx, new ConfigRetrieverOptions().addStore(env));
         retriever.getConfig().onComplete(config -> {
+            directEventBus = config.succeeded() && config.result() != null
+                    && EVENT_BUS_MODE_DIRECT.equalsIgnoreCase(config.result().getString(EVENT_BUS_MODE));
+            System.out.println("Event bus mode " + (directEventBus ? "direct" : "dispatcher"));
+            if (config.succeeded() && config.result() != null
+                    && PROXY_MODE_STREAM.equalsIgnoreCase(config.result().getString(PROXY_MODE))) {
+                // GITHUB_MAX_POOL_SIZE upstream connections in total, shared out between the HTTP instances
+                final int maxPoolSize = Math.max(1, config.result().getInteger(GitClientManager.GITHUB_MAX_POOL_SIZE,
+                        GitClientManager.DEFAULT_MAX_POOL_SIZE) / context.getInstanceCount());
+                streamingProxy = new StreamingProxyHandler(vertx, config.result().getString(GitClientManager.GITHUB_API_TOKEN, ""),
+                        config.result().getString(GitClientManager.GITHUB_BASE_URL),
+                        config.result().getBoolean(GitClientManager.GITHUB_HTTP2, false), maxPoolSize);
+                System.out.println("Proxy mode stream");
+            }
             HttpServer httpServer = vertx.createHttpServer()
                     .requestHandler(router)
                     .exceptionHandler(exception -> {
@@ -75,16 +158,29 @@ CachingService extends AbstractVerticle {
                     });
             final int port = config.succeeded() && config.result() != null && config.result().getInteger("APP_PORT") != null ? config.result().getInteger("APP_PORT"): 8080;
             System.out.println("Vertx Web Server to start on port " + port);
-            httpServer.listen(config.result().getInteger("APP_PORT"));
-            deployRequestDispatcherVerticle();
+            httpServer.listen(port);
         });
     }
 
     private void addProxyGETRoute(Router router) {
         Route route = router.route().method(HttpMethod.GET);
         route.handler(routingContext -> {
-            vertx.eventBus().request(PROXY_GET, routingContext.normalizedPath(), response -> {
-                if (response.succeeded()) {
+            // stream mode trades caching for memory: nothing goes through ProxyResponseCache or ProxyCachePolicy, every
+            // request is a GitHub call against the shared rate limit
+            if (streamingProxy != null) {
+                streamingProxy.handle(routingContext);
+                return;
+            }
+            // stale entries go through RedisClientManager, which revalidates them
+            final CachedResponse cached = proxyResponseCache.get(routingContext.normalizedPath());
+            if (cached != null && cached.isFresh(System.currentTimeMillis())) {
+                endWithCachedResponse(routingContext, cached);
+                return;
+            }
+            request(PROXY_GET, routingContext.normalizedPath(), response -> {
+                if (response.succeeded() && response.result().body() instanceof CachedResponse) {
+                    endWithCachedResponse(routingContext, (CachedResponse) response.result().body());
+                } else if (response.succeeded()) {
                     routingContext.response()
                             .setStatusCode(HttpStatus.OK.value())
                             .end(response.result().body().toString());
@@ -98,6 +194,43 @@ CachingService extends AbstractVerticle {
         });
     }
 
+    /*
+     * In direct mode requests go straight to the owning verticle, skipping the RequestRouteDispatcher hop.
+     */
+    private String eventAddress(String routeAddress) {
+        return directEventBus ? RequestRouteDispatcher.targetAddress(routeAddress) : routeAddress;
+    }
+
+    /*
+     * Times the event bus round trip (dispatcher hop included unless direct) separately from the whole route.
+     */
+    private void request(String routeAddress, String path, Handler<AsyncResult<Message<Object>>> replyHandler) {
+        final Timer.Context hop = MetricsUtil.timer("event_bus_hop_latency", "address", routeAddress).time();
+        vertx.eventBus().request(eventAddress(routeAddress), path, LocalReferenceCodec.localDelivery(), response -> {
+            hop.stop();
+            replyHandler.handle(response);
+        });
+    }
+
+    private void timeRoute(RoutingContext routingContext) {
+        final long start = System.nanoTime();
+        routingContext.addBodyEndHandler(v -> {
+            final Route current = routingContext.currentRoute();
+            final String route = current == null || current.getPath() == null ? "proxy" : current.getPath();
+            MetricsUtil.timer("http_route_latency", "route", route,
+                    "status", String.valueOf(routingContext.response().getStatusCode()))
+                    .update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        });
+        routingContext.next();
+    }
+
+    private void addMetricsRoute(Router router) {
+        router.get(MetricsUtil.METRICS_PATH).handler(routingContext -> routingContext.response()
+                .setStatusCode(HttpStatus.OK.value())
+                .putHeader(HttpHeaders.CONTENT_TYPE, PrometheusFormatter.CONTENT_TYPE)
+                .end(PrometheusFormatter.format(MetricsUtil.registry())));
+    }
+
     private void addHealthCheckRoute(Router router) {
         router.get(HEALTH_CHECK_PATH).handler(routingContext -> routingContext.response()
                 .setStatusCode(HttpStatus.OK.value())
@@ -105,54 +238,151 @@ CachingService extends AbstractVerticle {
                 .end("Live"));
     }
 
-    private void deployRequestDispatcherVerticle() {
-        vertx.deployVerticle(RequestRouteDispatcher::new,
-                new DeploymentOptions()
-                        .setWorker(true)
-                        .setWorkerPoolName("API-Router")
-                        .setWorkerPoolSize(20),
-                res -> {
-                    System.out.println("Deployed RequestRouteDispatcher-Verticle" + res.result());
-                });
+    private void addCustomViewGETRoute(Router router, ApiPathUtil.VIEW_PATH[] customViewPathList) {
+        Arrays.stream(customViewPathList).iterator().forEachRemaining(apiPath -> {
+            router.get(apiPath.value).handler(this::handleCustomViewGetRequest);
+            router.get(ORG_VIEW_PREFIX + apiPath.value).handler(this::handleCustomViewGetRequest);
+        });
     }
 
-    private void addCustomViewGETRoute(Router router, ApiPathUtil.VIEW_PATH[] customViewPathList) {
-        Arrays.stream(customViewPathList).iterator().forEachRemaining(apiPath -> router.get(apiPath.value)
-                .handler(this::handleCustomViewGetRequest));
+    private void addViewBatchGETRoute(Router router) {
+        router.get(VIEW_BATCH_PATH).handler(this::handleViewBatchGetRequest);
+        router.get(ORG_VIEW_PREFIX + VIEW_BATCH_PATH).handler(this::handleViewBatchGetRequest);
     }
 
+    private void addViewEngineGETRoute(Router router) {
+        router.get(VIEW_ENGINE_PATH).handler(this::handleViewEngineGetRequest);
+        router.get(ORG_VIEW_PREFIX + VIEW_ENGINE_PATH).handler(this::handleViewEngineGetRequest);
+    }
+
+    /*
+     * Only the paths of the orgs in ORGS are cached, any other org is proxied.
+     */
     private void addCachedGETRoute(Router router, ApiPathUtil.PROXY_PATH_REFRESH[] proxyPathList) {
-        Arrays.stream(proxyPathList).iterator().forEachRemaining(apiPath -> router.get(apiPath.value)
+        Arrays.stream(proxyPathList).flatMap(apiPath -> apiPath.paths().stream()).forEach(path -> router.get(path)
                 .handler(this::handleCachedGetRequest));
     }
     private void addCachedPaginatedGETRoute(Router router, ApiPathUtil.PROXY_PATH_PAGINATED_REFRESH[] proxyPathList) {
-        Arrays.stream(proxyPathList).iterator().forEachRemaining(apiPath -> router.get(apiPath.value)
+        Arrays.stream(proxyPathList).flatMap(apiPath -> apiPath.paths().stream()).forEach(path -> router.get(path)
                 .handler(this::handleCachedPaginatedGetRequest));
     }
 
     private void handleCachedGetRequest(RoutingContext routingContext) {
-        vertx.eventBus().request(CACHED_GET, routingContext.normalizedPath(), response -> {
-            if (response.succeeded()) {
-                routingContext.response()
-                        .setStatusCode(HttpStatus.OK.value())
-                        .putHeader("content-type", "application/json; charset=utf-8")
-                        .end(new JsonObject(response.result().body().toString()).encodePrettily());
-            } else {
-                routingContext.response()
+        handlePreRenderedGetRequest(routingContext, CACHED_GET, CachedResponse::ofJsonObject,
+                cached -> endWithCachedResponse(routingContext, cached));
+    }
+
+    /*
+     * Without page / per_page / fields the whole collection is served as before, otherwise only the requested page
+     * (per_page defaults to 30 and is capped at 100 like GitHub, past the last page is empty) with a GitHub style link
+     * header, optionally projected to the comma separated top level fields.
+     */
+    private void handleCachedPaginatedGetRequest(RoutingContext routingContext) {
+        final MultiMap params = routingContext.queryParams();
+        if (!params.contains(PAGE_PARAM) && !params.contains(PER_PAGE_PARAM) && !params.contains(FIELDS_PARAM)) {
+            handlePreRenderedGetRequest(routingContext, CACHED_PAGINATED_GET, CachedResponse::ofJsonArray,
+                    cached -> endWithCachedResponse(routingContext, cached));
+            return;
+        }
+        final boolean paginated = params.contains(PAGE_PARAM) || params.contains(PER_PAGE_PARAM);
+        final int page;
+        final int perPage;
+        try {
+            page = Math.max(1, Integer.parseInt(params.get(PAGE_PARAM) == null ? "1" : params.get(PAGE_PARAM)));
+            perPage = Math.max(1, Math.min(PagedCollection.MAX_PER_PAGE, params.get(PER_PAGE_PARAM) == null ?
+                    PagedCollection.DEFAULT_PER_PAGE : Integer.parseInt(params.get(PER_PAGE_PARAM))));
+        } catch (NumberFormatException e) {
+            routingContext.response()
+                    .setStatusCode(HttpStatus.BAD_REQUEST.value())
+                    .setStatusMessage(HttpStatus.BAD_REQUEST.getReasonPhrase())
+                    .end("page and per_page must be numbers");
+            return;
+        }
+        final String fields = params.get(FIELDS_PARAM);
+        final Set<String> projection = fields == null ? Set.of() : Arrays.stream(fields.split(","))
+                .map(String::trim).filter(field -> !field.isEmpty()).collect(Collectors.toCollection(LinkedHashSet::new));
+        handlePreRenderedGetRequest(routingContext, CACHED_PAGINATED_GET, CachedResponse::ofJsonArray, full ->
+                withPagedCollection(routingContext.normalizedPath(), full, paged -> {
+                    if (paginated) {
+                        routingContext.response().putHeader(LINK_HEADER,
+                                linkHeader(routingContext, page, paged.lastPage(perPage), perPage, fields));
+                        endWithCachedResponse(routingContext, paged.page(page, perPage, projection));
+                    } else {
+                        endWithCachedResponse(routingContext, paged.page(1, Math.max(1, paged.size()), projection));
+                    }
+                }, () -> routingContext.response()
                         .setStatusCode(HttpStatus.SERVICE_UNAVAILABLE.value())
                         .setStatusMessage(HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase())
-                        .end();
+                        .end()));
+    }
+
+    /*
+     * RedisClientManager lays out every collection it renders, only a full response it did not render (e.g. replied
+     * from the snapshot) is laid out here, once per generation and off the event loop.
+     */
+    private void withPagedCollection(String path, CachedResponse full, Consumer<PagedCollection> handler, Runnable onFailure) {
+        final PagedCollection paged = pagedCollections.get(path, full);
+        if (paged != null) {
+            handler.accept(paged);
+            return;
+        }
+        vertx.<PagedCollection>executeBlocking(promise -> {
+            final PagedCollection built = PagedCollection.of(repoPageParser.parseArray(full.getBody()));
+            pagedCollections.put(path, built);
+            promise.complete(built);
+        }, false).onComplete(built -> {
+            if (built.succeeded()) {
+                handler.accept(built.result());
+            } else {
+                System.out.println("Paging " + path + " failed " + built.cause());
+                onFailure.run();
             }
         });
     }
 
-    private void handleCachedPaginatedGetRequest(RoutingContext routingContext) {
-        vertx.eventBus().request(CACHED_PAGINATED_GET, routingContext.normalizedPath(), response -> {
+    private static String linkHeader(RoutingContext routingContext, int page, int lastPage, int perPage, String fields) {
+        final String base = routingContext.request().scheme() + "://" + routingContext.request().host()
+                + routingContext.normalizedPath() + "?per_page=" + perPage
+                + (fields == null ? "" : "&" + FIELDS_PARAM + "=" + URLEncoder.encode(fields, StandardCharsets.UTF_8)) + "&page=";
+        final List<String> relations = new ArrayList<>(4);
+        if (page > 1) {
+            relations.add("<" + base + Math.min(page - 1, lastPage) + ">; rel=\"prev\"");
+        }
+        if (page < lastPage) {
+            relations.add("<" + base + (page + 1) + ">; rel=\"next\"");
+        }
+        relations.add("<" + base + lastPage + ">; rel=\"last\"");
+        relations.add("<" + base + 1 + ">; rel=\"first\"");
+        return String.join(", ", relations);
+    }
+
+    /*
+     * Serves the pre-rendered body straight from the NearCache when fresh, only falling back to the event bus (and
+     * rendering the reply once) on a miss. Stale entries go through RedisClientManager, which replies them and reloads
+     * them. A failed request is a 503, a reply that is not JSON a 502.
+     */
+    private void handlePreRenderedGetRequest(RoutingContext routingContext, String eventAddress,
+                                             Function<String, CachedResponse> renderer, Consumer<CachedResponse> handler) {
+        final CachedResponse cached = nearCache.get(routingContext.normalizedPath());
+        if (cached != null && cached.isFresh(System.currentTimeMillis())) {
+            handler.accept(cached);
+            return;
+        }
+        request(eventAddress, routingContext.normalizedPath(), response -> {
             if (response.succeeded()) {
-                routingContext.response()
-                        .setStatusCode(HttpStatus.OK.value())
-                        .putHeader("content-type", "application/json; charset=utf-8")
-                        .end(new JsonArray(response.result().body().toString()).encodePrettily());
+                final Object body = response.result().body();
+                final CachedResponse rendered;
+                try {
+                    rendered = body instanceof CachedResponse ? (CachedResponse) body : renderer.apply(body.toString());
+                } catch (DecodeException e) {
+                    System.out.println("Unexpected reply for " + routingContext.normalizedPath() + " " + e.getMessage());
+                    routingContext.response()
+                            .setStatusCode(HttpStatus.BAD_GATEWAY.value())
+                            .setStatusMessage(HttpStatus.BAD_GATEWAY.getReasonPhrase())
+                            .end();
+                    return;
+                }
+                handler.accept(rendered);
             } else {
                 routingContext.response()
                         .setStatusCode(HttpStatus.SERVICE_UNAVAILABLE.value())
@@ -162,12 +392,64 @@ CachingService extends AbstractVerticle {
         });
     }
 
+    /*
+     * Org of a view route, the first of ORGS when it has no /orgs/:org prefix. An org not in ORGS ends the request
+     * with a 404 and returns null.
+     */
+    private static String viewOrg(RoutingContext routingContext) {
+        final String org = routingContext.pathParam(ORG_PARAM);
+        if (org == null) {
+            return ApiPathUtil.defaultOrg();
+        }
+        if (ApiPathUtil.isConfiguredOrg(org)) {
+            return org;
+        }
+        routingContext.response()
+                .setStatusCode(HttpStatus.NOT_FOUND.value())
+                .setStatusMessage(HttpStatus.NOT_FOUND.getReasonPhrase())
+                .end("Unknown org " + org);
+        return null;
+    }
+
+    /*
+     * /orgs/{org}/view/... whichever route served it, the near cache key and event bus body of the view.
+     */
+    private static String orgViewPath(RoutingContext routingContext, String org) {
+        final String path = routingContext.normalizedPath();
+        return ApiPathUtil.orgOf(path) != null ? path : ApiPathUtil.orgViewPath(org, path);
+    }
+
+    /*
+     * A non-numeric N is refused by RedisClientManager, relayed as a 400.
+     */
     private void handleCustomViewGetRequest(RoutingContext routingContext) {
-        vertx.eventBus().request(CUSTOM_GET,routingContext.normalizedPath(), response -> {
-            if (response.succeeded()) {
+        if (!routingContext.queryParams().isEmpty()) {
+            handleViewEngineGetRequest(routingContext); // filtered views are only served by the view engine
+            return;
+        }
+        final String org = viewOrg(routingContext);
+        if (org == null) {
+            return;
+        }
+        final String viewPath = orgViewPath(routingContext, org);
+        final CachedResponse cached = nearCache.get(viewPath);
+        if (cached != null) {
+            endWithCachedResponse(routingContext, cached);
+            return;
+        }
+        request(CUSTOM_GET, viewPath, response -> {
+            if (response.succeeded() && response.result().body() instanceof CachedResponse) {
+                endWithCachedResponse(routingContext, (CachedResponse) response.result().body());
+            } else if (response.succeeded()) {
                 routingContext.response()
                         .setStatusCode(HttpStatus.OK.value())
                         .end(response.result().body().toString());
+            } else if (response.cause() instanceof ReplyException
+                    && ((ReplyException) response.cause()).failureCode() == HttpStatus.BAD_REQUEST.value()) {
+                routingContext.response()
+                        .setStatusCode(HttpStatus.BAD_REQUEST.value())
+                        .setStatusMessage(HttpStatus.BAD_REQUEST.getReasonPhrase())
+                        .end(response.cause().getMessage());
             } else {
                 routingContext.response()
                         .setStatusCode(HttpStatus.SERVICE_UNAVAILABLE.value())
@@ -176,4 +458,131 @@ CachingService extends AbstractVerticle {
             }
         });
     }
+
+    /*
+     * Sub-queries are normalized (deduplicated, in request order) so equivalent batches share one near cache entry,
+     * kept under /orgs/{org}/view/ and dropped with the single views on every leader board rebuild of the org.
+     */
+    private void handleViewBatchGetRequest(RoutingContext routingContext) {
+        final String org = viewOrg(routingContext);
+        if (org == null) {
+            return;
+        }
+        final String batch;
+        try {
+            batch = ViewQuery.batchKey(ViewQuery.parseBatch(org, routingContext.queryParams().get(BATCH_QUERY_PARAM)));
+        } catch (IllegalArgumentException e) {
+            routingContext.response()
+                    .setStatusCode(HttpStatus.BAD_REQUEST.value())
+                    .setStatusMessage(HttpStatus.BAD_REQUEST.getReasonPhrase())
+                    .end(e.getMessage());
+            return;
+        }
+        final CachedResponse cached = nearCache.get(batch);
+        if (cached != null) {
+            endWithCachedResponse(routingContext, cached);
+            return;
+        }
+        request(CUSTOM_BATCH_GET, batch, response -> {
+            if (response.succeeded() && response.result().body() instanceof CachedResponse) {
+                endWithCachedResponse(routingContext, (CachedResponse) response.result().body());
+            } else {
+                routingContext.response()
+                        .setStatusCode(HttpStatus.SERVICE_UNAVAILABLE.value())
+                        .setStatusMessage(HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase())
+                        .end(response.succeeded() ? response.result().body().toString() : "");
+            }
+        });
+    }
+
+    private void handleViewEngineGetRequest(RoutingContext routingContext) {
+        final String org = viewOrg(routingContext);
+        if (org == null) {
+            return;
+        }
+        final RepoViewEngine repoViewEngine = RepoViewEngine.get(vertx, org);
+        if (!repoViewEngine.isReady()) {
+            routingContext.response()
+                    .setStatusCode(HttpStatus.SERVICE_UNAVAILABLE.value())
+                    .setStatusMessage(HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase())
+                    .end("view not yet ready");
+            return;
+        }
+        // /orgs/{org}/view/{direction}/{N}/{column}
+        final String[] segments = orgViewPath(routingContext, org).split("/");
+        try {
+            final String view = repoViewEngine.query(segments[4], segments[5], segments[6], routingContext.queryParams());
+            routingContext.response()
+                    .setStatusCode(HttpStatus.OK.value())
+                    .putHeader("content-type", "application/json; charset=utf-8")
+                    .end(view);
+        } catch (IllegalArgumentException e) {
+            routingContext.response()
+                    .setStatusCode(HttpStatus.BAD_REQUEST.value())
+                    .setStatusMessage(HttpStatus.BAD_REQUEST.getReasonPhrase())
+                    .end(e.getMessage());
+        }
+    }
+
+    /*
+     * Clients accepting gzip get the stored bytes as is, the others a decompressed copy.
+     */
+    private void endWithCachedResponse(RoutingContext routingContext, CachedResponse cached) {
+        final boolean gzip = acceptsGzip(routingContext);
+        routingContext.response()
+                .putHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .putHeader(HttpHeaders.ETAG, gzip ? cached.getGzipEtag() : cached.getEtag())
+                .putHeader(HttpHeaders.LAST_MODIFIED, formatHttpDate(cached.getLastModified()));
+        if (isNotModified(routingContext, cached)) {
+            routingContext.response()
+                    .setStatusCode(HttpStatus.NOT_MODIFIED.value())
+                    .end();
+        } else if (gzip) {
+            routingContext.response()
+                    .setStatusCode(HttpStatus.OK.value())
+                    .putHeader("content-type", "application/json; charset=utf-8")
+                    .putHeader(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .end(cached.getGzipBody());
+        } else {
+            routingContext.response()
+                    .setStatusCode(HttpStatus.OK.value())
+                    .putHeader("content-type", "application/json; charset=utf-8")
+                    .end(cached.getBody());
+        }
+    }
+
+    private static boolean acceptsGzip(RoutingContext routingContext) {
+        final String acceptEncoding = routingContext.request().getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        return Arrays.stream(acceptEncoding.split(","))
+                .map(coding -> coding.trim().toLowerCase().replace(" ", ""))
+                .anyMatch(coding -> (coding.startsWith("gzip") || coding.startsWith("*"))
+                        && !coding.endsWith(";q=0") && !coding.endsWith(";q=0.0") && !coding.endsWith(";q=0.000"));
+    }
+
+    private boolean isNotModified(RoutingContext routingContext, CachedResponse cached) {
+        final String ifNoneMatch = routingContext.request().getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            return ifNoneMatch.trim().equals("*") || Arrays.stream(ifNoneMatch.split(","))
+                    .map(String::trim)
+                    .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                    .anyMatch(tag -> tag.equals(cached.getEtag()) || tag.equals(cached.getGzipEtag()));
+        }
+        final String ifModifiedSince = routingContext.request().getHeader(HttpHeaders.IF_MODIFIED_SINCE);
+        if (ifModifiedSince != null) {
+            try {
+                final long since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+                return cached.getLastModified() / 1000 <= since / 1000;
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static String formatHttpDate(long epochMillis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(epochMillis).atZone(ZoneOffset.UTC));
+    }
 }
@@ -1,88 +1,90 @@
 package server;
 
-import git.GitClientManager;
-import cache.RedisClientManager;
 import io.vertx.core.AbstractVerticle;
-import io.vertx.core.DeploymentOptions;
 import io.vertx.core.Handler;
 import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.ReplyException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
+import utils.LocalReferenceCodec;
 
+import java.util.Map;
 
 import static cache.RedisClientManager.REDIS_SET_EVENT_ADDRESS;
-import static git.GitClientManager.GITHUB_EVENT_ADDRESS;
+import static cache.RedisClientManager.REDIS_PROXY_EVENT_ADDRESS;
 import static cache.RedisClientManager.REDIS_MAP_EVENT_ADDRESS;
+import static cache.RedisClientManager.REDIS_RANK_BATCH_EVENT_ADDRESS;
 import static cache.RedisClientManager.REDIS_RANK_EVENT_ADDRESS;
 import static utils.ApiPathUtil.CACHED_PAGINATED_GET;
+import static utils.ApiPathUtil.CUSTOM_BATCH_GET;
 import static utils.ApiPathUtil.CUSTOM_GET;
 import static utils.ApiPathUtil.CACHED_GET;
 import static utils.ApiPathUtil.PROXY_GET;
 
+/*
+ * RequestRouteDispatcher relays each CachingService route address to the verticle owning it, reply bodies are passed
+ * through untouched (CachedResponse travels by reference) and failures are relayed as failures with their code. With EVENT_BUS_MODE=direct CachingService resolves the
+ * target through targetAddress and skips this hop entirely.
+ */
 @Component
 public class RequestRouteDispatcher extends AbstractVerticle {
 
+    private static final Map<String, String> TARGET_ADDRESSES = Map.of(
+            CUSTOM_GET, REDIS_RANK_EVENT_ADDRESS,
+            CUSTOM_BATCH_GET, REDIS_RANK_BATCH_EVENT_ADDRESS,
+            CACHED_GET, REDIS_MAP_EVENT_ADDRESS,
+            CACHED_PAGINATED_GET, REDIS_SET_EVENT_ADDRESS,
+            PROXY_GET, REDIS_PROXY_EVENT_ADDRESS);
+
+    public static String targetAddress(String routeAddress) {
+        return TARGET_ADDRESSES.get(routeAddress);
+    }
+
     @Override
     public void start() throws Exception {
         super.start();
 
         vertx.eventBus().<String>consumer(CUSTOM_GET).handler(handleCustomViewRequest());
+        vertx.eventBus().<String>consumer(CUSTOM_BATCH_GET).handler(handleCustomViewBatchRequest());
         vertx.eventBus().<String>consumer(CACHED_GET).handler(handleCachedRequest());
         vertx.eventBus().<String>consumer(CACHED_PAGINATED_GET).handler(handlePaginagtedCachedRequest());
         vertx.eventBus().<String>consumer(PROXY_GET).handler(handleProxyRequest());
-
-        deployRedisClientVerticle();
-        deployGitClientVerticle();
     }
 
     private Handler<Message<String>> handleProxyRequest() {
-        return getMessageHandler(GITHUB_EVENT_ADDRESS);
+        return getMessageHandler(targetAddress(PROXY_GET));
     }
 
     private Handler<Message<String>> handleCustomViewRequest() {
-        return getMessageHandler(REDIS_RANK_EVENT_ADDRESS);
+        return getMessageHandler(targetAddress(CUSTOM_GET));
+    }
+
+    private Handler<Message<String>> handleCustomViewBatchRequest() {
+        return getMessageHandler(targetAddress(CUSTOM_BATCH_GET));
     }
 
     private Handler<Message<String>> handleCachedRequest() {
-        return getMessageHandler(REDIS_MAP_EVENT_ADDRESS);
+        return getMessageHandler(targetAddress(CACHED_GET));
     }
 
     private Handler<Message<String>> handlePaginagtedCachedRequest() {
-        return getMessageHandler(REDIS_SET_EVENT_ADDRESS);
+        return getMessageHandler(targetAddress(CACHED_PAGINATED_GET));
     }
 
     private Handler<Message<String>> getMessageHandler(String redisEventAddress) {
         return msg -> {
             String pathName = msg.body();
-            vertx.eventBus().request(redisEventAddress, pathName, response -> {
+            vertx.eventBus().request(redisEventAddress, pathName, LocalReferenceCodec.localDelivery(), response -> {
                 if (response.succeeded()) {
-                    msg.reply(response.result().body().toString());
+                    msg.reply(response.result().body());
+                } else if (response.cause() instanceof ReplyException) {
+                    // failures travel on as failures, e.g. the 502 of a miss fetch that could not reach git
+                    msg.fail(((ReplyException) response.cause()).failureCode(), response.cause().getMessage());
                 } else {
-                    msg.reply("ERROR " + response.cause());
+                    msg.fail(HttpStatus.BAD_GATEWAY.value(), response.cause().getMessage());
                 }
             });
 
         };
     }
-
-    private void deployRedisClientVerticle() {
-        vertx.deployVerticle(RedisClientManager::new,
-                new DeploymentOptions()
-                        .setWorker(true)
-                        .setWorkerPoolName("Cache-Read")
-                        .setWorkerPoolSize(20),
-                res -> {
-                    System.out.println("Deployed Cache-Read-Verticle" + res.cause());
-                });
-    }
-
-    private void deployGitClientVerticle() {
-        vertx.deployVerticle(GitClientManager::new,
-                new DeploymentOptions()
-                        .setWorker(true)
-                        .setWorkerPoolName("Git-api")
-                        .setWorkerPoolSize(20),
-                res -> {
-                    System.out.println("Deployed Git-API-Verticle" + res.cause());
-                });
-    }
 }
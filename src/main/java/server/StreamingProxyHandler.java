@@ -0,0 +1,86 @@
+package server;
+
+import git.RateLimitState;
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.ext.web.RoutingContext;
+import org.springframework.http.HttpStatus;
+import utils.MetricsUtil;
+
+import java.util.List;
+
+import static git.GitClientManager.configureUpstream;
+
+/**
+ * StreamingProxyHandler serves the passthrough GitHub paths (PROXY_MODE=stream) over a pooled keep-alive upstream
+ * connection, piping the upstream body to the client as it arrives: no full buffering in heap, no event bus hops.
+ * Upstream status codes and the relevant headers are passed through both ways.
+ * Nothing is cached on the way: buffered mode (ProxyResponseCache, ProxyCachePolicy TTLs) suits hot passthrough paths
+ * better, stream mode large or rarely repeated ones.
+ */
+public class StreamingProxyHandler implements Handler<RoutingContext> {
+
+    private static final List<CharSequence> REQUEST_HEADERS = List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING,
+            HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE);
+    private static final List<CharSequence> RESPONSE_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_ENCODING,
+            HttpHeaders.CONTENT_LENGTH, HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED, HttpHeaders.CACHE_CONTROL, "link",
+            "x-ratelimit-limit", "x-ratelimit-remaining", "x-ratelimit-reset");
+
+    private final HttpClient client;
+    private final String apiToken;
+    private final RateLimitState rateLimitState;
+
+    public StreamingProxyHandler(Vertx vertx, String apiToken, String baseUrl, boolean http2, int maxPoolSize) {
+        this.client = vertx.createHttpClient(configureUpstream(new HttpClientOptions(), baseUrl, http2, maxPoolSize));
+        this.apiToken = apiToken;
+        this.rateLimitState = RateLimitState.get(vertx);
+    }
+
+    @Override
+    public void handle(RoutingContext routingContext) {
+        final MultiMap clientHeaders = routingContext.request().headers();
+        // timed until the upstream headers arrive, the body is streamed afterwards
+        MetricsUtil.timed(MetricsUtil.timer("github_request_latency"), () -> client.request(HttpMethod.GET, routingContext.request().uri())
+                        .compose(upstreamRequest -> {
+                            REQUEST_HEADERS.stream()
+                                    .filter(clientHeaders::contains)
+                                    .forEach(header -> upstreamRequest.putHeader(header, clientHeaders.get(header)));
+                            upstreamRequest.putHeader(HttpHeaders.USER_AGENT, "Cache-App/1");
+                            if (!apiToken.isBlank()) {
+                                upstreamRequest.putHeader(HttpHeaders.AUTHORIZATION, "Bearer " + apiToken);
+                            }
+                            return upstreamRequest.send();
+                        }))
+                .onSuccess(upstreamResponse -> pipe(upstreamResponse, routingContext.response()))
+                .onFailure(err -> {
+                    System.out.println("Streaming proxy failed " + err.getMessage());
+                    if (!routingContext.response().headWritten()) {
+                        routingContext.response()
+                                .setStatusCode(HttpStatus.BAD_GATEWAY.value())
+                                .setStatusMessage(HttpStatus.BAD_GATEWAY.getReasonPhrase())
+                                .end();
+                    }
+                });
+    }
+
+    private void pipe(HttpClientResponse upstreamResponse, HttpServerResponse response) {
+        MetricsUtil.counter("github_responses", "status", String.valueOf(upstreamResponse.statusCode())).inc();
+        rateLimitState.update(upstreamResponse.headers());
+        response.setStatusCode(upstreamResponse.statusCode());
+        RESPONSE_HEADERS.stream()
+                .filter(upstreamResponse.headers()::contains)
+                .forEach(header -> response.putHeader(header, upstreamResponse.getHeader(header)));
+        if (!upstreamResponse.headers().contains(HttpHeaders.CONTENT_LENGTH)) {
+            response.setChunked(true);
+        }
+        upstreamResponse.pipeTo(response)
+                .onFailure(err -> System.out.println("Streaming proxy pipe failed " + err.getMessage()));
+    }
+}
@@ -1,13 +1,31 @@
 package utils;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 
+/*
+ * Paths with an {org} placeholder are cached once per org of ORGS (comma separated, default Netflix), each org in its
+ * own keyspace: /orgs/{org}/... paths, Bottom_N_*:{org} sorted sets and /orgs/{org}/view/... views. The un-prefixed
+ * /view/... routes serve the first org of ORGS.
+ */
 public class ApiPathUtil {
 
+    public static final String ORGS = "ORGS";
+    private static final String DEFAULT_ORGS = "Netflix";
+    private static final String ORG_PLACEHOLDER = "{org}";
+    private static final String ORGS_PREFIX = "/orgs/";
+    private static final List<String> CONFIGURED_ORGS = parseOrgs(System.getenv(ORGS));
+
     public  static String CACHED_GET = "cachedGet";
     public  static String CACHED_PAGINATED_GET = "cachedPaginatedGet";
     public  static String CUSTOM_GET = "customGet";
+    public  static String CUSTOM_BATCH_GET = "customBatchGet";
     public  static String PROXY_GET = "proxyGet";
     public static String HEALTH_CHECK_PATH = "/healthcheck";
+    public static String VIEW_ENGINE_PATH = "/view/:direction/:N/:column";
+    public static String VIEW_BATCH_PATH = "/view/batch";
+    public static String ORG_VIEW_PREFIX = "/orgs/:org";
 
     public enum VIEW_PATH {
         PATH_VIEW_BOTTOM_FORK("/view/bottom/:N/forks"),
@@ -22,26 +40,99 @@ public class ApiPathUtil {
         }
     }
 
+    /*
+     * refreshSeconds is the base refresh interval of each path, RefreshScheduler backs off from it while data is unchanged.
+     */
     public enum PROXY_PATH_REFRESH {
-        PATH_HOME("/"),
-        PATH_ORG_NETFLIX("/orgs/Netflix");
+        PATH_HOME("/", 600),
+        PATH_ORG("/orgs/{org}", 120);
 
         public final String value;
+        public final int refreshSeconds;
 
-        PROXY_PATH_REFRESH(String value) {
+        PROXY_PATH_REFRESH(String value, int refreshSeconds) {
             this.value = value;
+            this.refreshSeconds = refreshSeconds;
+        }
+
+        public String path(String org) {
+            return value.replace(ORG_PLACEHOLDER, org);
+        }
+
+        public List<String> paths() {
+            return expand(value);
         }
     }
 
     public enum PROXY_PATH_PAGINATED_REFRESH {
-        PATH_ORG_NETFLIX_MEMBERS("/orgs/Netflix/members"),
-        PATH_ORG_NETFLIX_REPOS ("/orgs/Netflix/repos");
+        PATH_ORG_MEMBERS("/orgs/{org}/members", 300),
+        PATH_ORG_REPOS ("/orgs/{org}/repos", 30);
 
         public final String value;
+        public final int refreshSeconds;
 
-        PROXY_PATH_PAGINATED_REFRESH(String value) {
+        PROXY_PATH_PAGINATED_REFRESH(String value, int refreshSeconds) {
             this.value = value;
+            this.refreshSeconds = refreshSeconds;
+        }
+
+        public String path(String org) {
+            return value.replace(ORG_PLACEHOLDER, org);
+        }
+
+        public List<String> paths() {
+            return expand(value);
+        }
+    }
+
+    public static List<String> orgs() {
+        return CONFIGURED_ORGS;
+    }
+
+    public static String defaultOrg() {
+        return CONFIGURED_ORGS.get(0);
+    }
+
+    public static boolean isConfiguredOrg(String org) {
+        return org != null && CONFIGURED_ORGS.contains(org);
+    }
+
+    /**
+     * @return org of an /orgs/{org} or /orgs/{org}/... path, null for any other path.
+     */
+    public static String orgOf(String path) {
+        if (path == null || !path.startsWith(ORGS_PREFIX)) {
+            return null;
         }
+        final int end = path.indexOf('/', ORGS_PREFIX.length());
+        return path.substring(ORGS_PREFIX.length(), end < 0 ? path.length() : end);
+    }
+
+    /**
+     * @param viewPath an un-prefixed /view/... path.
+     */
+    public static String orgViewPath(String org, String viewPath) {
+        return ORGS_PREFIX + org + viewPath;
     }
 
+    /**
+     * Every path refreshed across all orgs, i.e. what one GitHub token has to keep fresh.
+     */
+    public static int refreshedPathCount() {
+        return Arrays.stream(PROXY_PATH_REFRESH.values()).mapToInt(path -> path.paths().size()).sum()
+                + Arrays.stream(PROXY_PATH_PAGINATED_REFRESH.values()).mapToInt(path -> path.paths().size()).sum();
+    }
+
+    private static List<String> expand(String template) {
+        if (!template.contains(ORG_PLACEHOLDER)) {
+            return List.of(template);
+        }
+        return CONFIGURED_ORGS.stream().map(org -> template.replace(ORG_PLACEHOLDER, org)).collect(Collectors.toList());
+    }
+
+    static List<String> parseOrgs(String orgs) {
+        final List<String> parsed = Arrays.stream((orgs == null || orgs.isBlank() ? DEFAULT_ORGS : orgs).split(","))
+                .map(String::trim).filter(org -> !org.isEmpty()).distinct().collect(Collectors.toList());
+        return parsed.isEmpty() ? List.of(DEFAULT_ORGS) : List.copyOf(parsed);
+    }
 }
@@ -0,0 +1,35 @@
+package utils;
+
+import io.vertx.core.buffer.Buffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class CompressionUtil {
+
+    public static Buffer gzip(Buffer plain) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, plain.length() / 8));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(plain.getBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Buffer.buffer(out.toByteArray());
+    }
+
+    public static Buffer gunzip(Buffer compressed) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed.getBytes()))) {
+            return Buffer.buffer(gzip.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static boolean isGzip(Buffer buffer) {
+        return buffer.length() >= 2 && buffer.getByte(0) == (byte) 0x1f && buffer.getByte(1) == (byte) 0x8b;
+    }
+}
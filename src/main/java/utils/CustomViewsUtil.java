@@ -15,5 +15,27 @@ public class CustomViewsUtil {
             this.viewName = viewName;
             this.setName = setName;
         }
+
+        /**
+         * Sorted set of this view for org, the {org} hash tag keeps every set of an org in one Redis Cluster slot.
+         */
+        public String setKey(String org) {
+            return setName + ":{" + org + "}";
+        }
+    }
+
+    public enum VIEW_COLUMNS {
+        forks("forks"),
+        stars("stargazers_count"),
+        watchers("watchers_count"),
+        size("size"),
+        open_issues("open_issues"),
+        last_updated("updated_at");
+
+        public final String fieldName;
+
+        VIEW_COLUMNS(String fieldName) {
+            this.fieldName = fieldName;
+        }
     }
 }
@@ -0,0 +1,64 @@
+package utils;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * DeploymentOptionsUtil builds the DeploymentOptions of every verticle from the env config.
+ * DEPLOYMENT_MODE=worker (default) keeps one instance per verticle on its own 20 thread worker pool.
+ * DEPLOYMENT_MODE=event-loop deploys non-worker verticles: HTTP_INSTANCES CachingService instances sharing the port
+ * (default one per core) and CACHE_INSTANCES / GIT_INSTANCES RedisClientManager / GitClientManager instances.
+ * RedisClientManager then runs its CPU heavy steps (collection parsing, gzip, leaderboard diff) on worker threads.
+ * CACHE_INSTANCES applies in both modes: every RedisClientManager instance is a refresh worker for its share of ORGS,
+ * so it defaults to one per org up to one per core.
+ */
+public class DeploymentOptionsUtil {
+
+    public static final String DEPLOYMENT_MODE = "DEPLOYMENT_MODE";
+    public static final String HTTP_INSTANCES = "HTTP_INSTANCES";
+    public static final String CACHE_INSTANCES = "CACHE_INSTANCES";
+    public static final String GIT_INSTANCES = "GIT_INSTANCES";
+    public static final String[] CONFIG_KEYS = {DEPLOYMENT_MODE, HTTP_INSTANCES, CACHE_INSTANCES, GIT_INSTANCES};
+    private static final String EVENT_LOOP_MODE = "event-loop";
+    private static final int WORKER_POOL_SIZE = 20;
+
+    public static boolean isEventLoopMode(JsonObject config) {
+        return EVENT_LOOP_MODE.equalsIgnoreCase(config.getString(DEPLOYMENT_MODE));
+    }
+
+    public static DeploymentOptions httpOptions(JsonObject config) {
+        return new DeploymentOptions()
+                .setConfig(config)
+                .setInstances(isEventLoopMode(config) ? config.getInteger(HTTP_INSTANCES, Runtime.getRuntime().availableProcessors()) : 1);
+    }
+
+    /**
+     * Dispatcher only relays, in event-loop mode it runs as many instances as the HTTP verticle.
+     */
+    public static DeploymentOptions dispatcherOptions(JsonObject config) {
+        return verticleOptions(config, "API-Router", HTTP_INSTANCES, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static DeploymentOptions cacheOptions(JsonObject config) {
+        final int instances = config.getInteger(CACHE_INSTANCES,
+                Math.min(Runtime.getRuntime().availableProcessors(), ApiPathUtil.orgs().size()));
+        return verticleOptions(config, "Cache-Read", CACHE_INSTANCES, instances).setInstances(instances);
+    }
+
+    public static DeploymentOptions gitOptions(JsonObject config) {
+        return verticleOptions(config, "Git-api", GIT_INSTANCES, 1);
+    }
+
+    private static DeploymentOptions verticleOptions(JsonObject config, String workerPoolName, String instancesKey, int defaultInstances) {
+        if (isEventLoopMode(config)) {
+            return new DeploymentOptions()
+                    .setConfig(config)
+                    .setInstances(config.getInteger(instancesKey, defaultInstances));
+        }
+        return new DeploymentOptions()
+                .setConfig(config)
+                .setWorker(true)
+                .setWorkerPoolName(workerPoolName)
+                .setWorkerPoolSize(WORKER_POOL_SIZE);
+    }
+}
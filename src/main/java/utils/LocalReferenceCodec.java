@@ -0,0 +1,63 @@
+package utils;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.eventbus.MessageCodec;
+
+/**
+ * LocalReferenceCodec passes immutable objects between verticles of the same Vertx instance by reference: no
+ * serialization and no copy. It has no wire form: every request whose reply carries such an object is sent with
+ * localDelivery(), so replies never leave this JVM even if the event bus gets clustered.
+ */
+public class LocalReferenceCodec<T> implements MessageCodec<T, T> {
+
+    private final Class<T> type;
+
+    private LocalReferenceCodec(Class<T> type) {
+        this.type = type;
+    }
+
+    /**
+     * Registers the codec as default for type, a second registration on the same Vertx is ignored.
+     */
+    public static <T> void register(Vertx vertx, Class<T> type) {
+        try {
+            vertx.eventBus().registerDefaultCodec(type, new LocalReferenceCodec<>(type));
+        } catch (IllegalStateException alreadyRegistered) {
+            // every verticle registers on start, first one wins
+        }
+    }
+
+    /**
+     * Delivery restricted to this Vertx instance, a reply to such a request is delivered locally too.
+     */
+    public static DeliveryOptions localDelivery() {
+        return new DeliveryOptions().setLocalOnly(true);
+    }
+
+    @Override
+    public void encodeToWire(Buffer buffer, T t) {
+        throw new UnsupportedOperationException(name() + " is local only, send with LocalReferenceCodec.localDelivery()");
+    }
+
+    @Override
+    public T decodeFromWire(int pos, Buffer buffer) {
+        throw new UnsupportedOperationException(name() + " is local only, send with LocalReferenceCodec.localDelivery()");
+    }
+
+    @Override
+    public T transform(T t) {
+        return t;
+    }
+
+    @Override
+    public String name() {
+        return "local-" + type.getSimpleName();
+    }
+
+    @Override
+    public byte systemCodecID() {
+        return -1;
+    }
+}
@@ -0,0 +1,83 @@
+package utils;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+import com.google.common.cache.CacheStats;
+import io.vertx.core.Future;
+import io.vertx.core.metrics.MetricsOptions;
+import io.vertx.ext.dropwizard.DropwizardMetricsOptions;
+
+import java.util.function.Supplier;
+
+/**
+ * MetricsUtil gives every verticle the shared REGISTRY_NAME registry: the one Vert.x Dropwizard metrics report to
+ * (HTTP server, event bus, pools) and the application metrics below are added to, all exported by /metrics.
+ * Labels are encoded in the metric name, name{key="value",...}, and split back by PrometheusFormatter.
+ */
+public class MetricsUtil {
+
+    public static final String REGISTRY_NAME = "netflix-cache";
+    public static final String METRICS_PATH = "/metrics";
+
+    public static MetricsOptions metricsOptions() {
+        return new DropwizardMetricsOptions()
+                .setEnabled(true)
+                .setRegistryName(REGISTRY_NAME);
+    }
+
+    public static MetricRegistry registry() {
+        return SharedMetricRegistries.getOrCreate(REGISTRY_NAME);
+    }
+
+    /**
+     * @param labels label key / value pairs
+     */
+    public static String name(String base, String... labels) {
+        if (labels.length == 0) {
+            return base;
+        }
+        final StringBuilder name = new StringBuilder(base).append('{');
+        for (int i = 0; i + 1 < labels.length; i += 2) {
+            if (i > 0) {
+                name.append(',');
+            }
+            name.append(labels[i]).append("=\"")
+                    .append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n"))
+                    .append('"');
+        }
+        return name.append('}').toString();
+    }
+
+    public static Timer timer(String base, String... labels) {
+        return registry().timer(name(base, labels));
+    }
+
+    public static Counter counter(String base, String... labels) {
+        return registry().counter(name(base, labels));
+    }
+
+    public static void gauge(String name, Gauge<?> gauge) {
+        registry().gauge(name, () -> gauge);
+    }
+
+    /**
+     * Hit / miss totals, hit ratio and entry count of an in-process cache, read on every scrape.
+     */
+    public static void cacheGauges(String cache, Supplier<CacheStats> stats, Supplier<Long> size) {
+        gauge(name("cache_hits", "cache", cache), () -> stats.get().hitCount());
+        gauge(name("cache_misses", "cache", cache), () -> stats.get().missCount());
+        gauge(name("cache_hit_ratio", "cache", cache), () -> stats.get().hitRate());
+        gauge(name("cache_size", "cache", cache), size::get);
+    }
+
+    /**
+     * Times an async call, from the moment it is issued until its future completes (success or failure).
+     */
+    public static <T> Future<T> timed(Timer timer, Supplier<Future<T>> call) {
+        final Timer.Context context = timer.time();
+        return call.get().onComplete(result -> context.stop());
+    }
+}
@@ -0,0 +1,90 @@
+package utils;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PrometheusFormatter renders a Dropwizard registry in the Prometheus text exposition format (version 0.0.4).
+ * Timers and histograms are sampled by a reservoir, so they are exported as summaries (quantiles + count), timers in
+ * seconds. Counters and meters become counters, numeric gauges gauges, anything else is skipped.
+ */
+public class PrometheusFormatter {
+
+    public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    public static String format(MetricRegistry registry) {
+        final Map<String, Map<String, Metric>> byFamily = new TreeMap<>();
+        registry.getMetrics().forEach((name, metric) -> {
+            final int labelStart = name.indexOf('{');
+            final String family = sanitize(labelStart < 0 ? name : name.substring(0, labelStart));
+            final String labels = labelStart < 0 ? "" : name.substring(labelStart + 1, name.length() - 1);
+            byFamily.computeIfAbsent(family, key -> new TreeMap<>()).put(labels, metric);
+        });
+
+        final StringBuilder out = new StringBuilder();
+        byFamily.forEach((family, metrics) -> {
+            final Metric first = metrics.values().iterator().next();
+            if (first instanceof Timer || first instanceof Histogram) {
+                out.append("# TYPE ").append(family).append(" summary\n");
+                metrics.forEach((labels, metric) -> appendSummary(out, family, labels, metric));
+            } else if (first instanceof Counter || first instanceof Meter) {
+                final String name = family.endsWith("_total") ? family : family + "_total";
+                out.append("# TYPE ").append(name).append(" counter\n");
+                metrics.forEach((labels, metric) -> appendSample(out, name, labels, metric instanceof Counter ?
+                        ((Counter) metric).getCount() : ((Meter) metric).getCount()));
+            } else if (first instanceof Gauge) {
+                out.append("# TYPE ").append(family).append(" gauge\n");
+                metrics.forEach((labels, metric) -> {
+                    final Object value = metric instanceof Gauge ? ((Gauge<?>) metric).getValue() : null;
+                    if (value instanceof Number) {
+                        appendSample(out, family, labels, ((Number) value).doubleValue());
+                    } else if (value instanceof Boolean) {
+                        appendSample(out, family, labels, (Boolean) value ? 1 : 0);
+                    }
+                });
+            }
+        });
+        return out.toString();
+    }
+
+    private static void appendSummary(StringBuilder out, String family, String labels, Metric metric) {
+        final boolean timer = metric instanceof Timer;
+        final Snapshot snapshot = timer ? ((Timer) metric).getSnapshot() : ((Histogram) metric).getSnapshot();
+        final long count = timer ? ((Timer) metric).getCount() : ((Histogram) metric).getCount();
+        for (double quantile : QUANTILES) {
+            final double value = snapshot.getValue(quantile);
+            appendSample(out, family, join(labels, "quantile=\"" + quantile + "\""), timer ? value / NANOS_PER_SECOND : value);
+        }
+        appendSample(out, family + "_count", labels, count);
+    }
+
+    private static void appendSample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value == Math.rint(value) && !Double.isInfinite(value) ? String.valueOf((long) value) : String.valueOf(value))
+                .append('\n');
+    }
+
+    private static String join(String labels, String label) {
+        return labels.isEmpty() ? label : labels + "," + label;
+    }
+
+    static String sanitize(String name) {
+        final String sanitized = name.replaceAll("[^a-zA-Z0-9_:]", "_");
+        return Character.isDigit(sanitized.charAt(0)) ? "_" + sanitized : sanitized;
+    }
+}
@@ -0,0 +1,156 @@
+package view;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.vertx.core.buffer.Buffer;
+import model.CachedResponse;
+import model.RepoRecord;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * PagedCollection is one rendered generation of a cached collection (e.g. /orgs/Netflix/repos) laid out for paging:
+ * the full body (RESPONSE_FORMAT, joined from the elements RepoPageParser rendered) with the start / end offset of
+ * every element in it, and the full CachedResponse rendered from that body.
+ * A page without a fields projection is a single slice of the body between its first and last element, a projected
+ * page only re-reads the elements of that page. Rendered pages are kept per generation (up to PAGE_CACHE_SIZE), each
+ * a CachedResponse with its own ETag, and go away with it.
+ */
+public class PagedCollection {
+
+    public static final int DEFAULT_PER_PAGE = 30; // GitHub defaults
+    public static final int MAX_PER_PAGE = 100;
+    private static final int PAGE_CACHE_SIZE = 256;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final CachedResponse full;
+    private final Buffer body;
+    private final int[] starts;
+    private final int[] ends;
+    private final Cache<String, CachedResponse> pages = CacheBuilder.newBuilder().maximumSize(PAGE_CACHE_SIZE).build();
+
+    private PagedCollection(CachedResponse full, Buffer body, int[] starts, int[] ends) {
+        this.full = full;
+        this.body = body;
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /**
+     * @param elements in served order.
+     */
+    public static PagedCollection of(List<RepoRecord> elements) {
+        final Buffer body = Buffer.buffer(elements.stream().mapToInt(element -> element.getRendered().length() + 2).sum() + 4);
+        final int[] starts = new int[elements.size()];
+        final int[] ends = new int[elements.size()];
+        body.appendString(open());
+        for (int i = 0; i < elements.size(); i++) {
+            if (i > 0) {
+                body.appendString(separator());
+            }
+            starts[i] = body.length();
+            body.appendBuffer(elements.get(i).getRendered());
+            ends[i] = body.length();
+        }
+        body.appendString(close(elements.isEmpty()));
+        return new PagedCollection(CachedResponse.of(body, System.currentTimeMillis()), body, starts, ends);
+    }
+
+    public CachedResponse getFull() {
+        return full;
+    }
+
+    public boolean sameContentAs(CachedResponse other) {
+        return full.sameContentAs(other);
+    }
+
+    public int size() {
+        return starts.length;
+    }
+
+    public int lastPage(int perPage) {
+        return Math.max(1, (size() + perPage - 1) / perPage);
+    }
+
+    /**
+     * @param page    1 based, past the last page is an empty array like GitHub.
+     * @param fields  top level fields to keep, empty keeps every field.
+     */
+    public CachedResponse page(int page, int perPage, Set<String> fields) {
+        final String key = page + ":" + perPage + ":" + String.join(",", fields);
+        final CachedResponse cached = pages.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        final int first = (int) Math.min(size(), (long) (page - 1) * perPage);
+        final int last = Math.min(size(), first + perPage);
+        final CachedResponse rendered = CachedResponse.of(fields.isEmpty() ? slice(first, last) : project(first, last, fields),
+                full.getLastModified());
+        pages.put(key, rendered);
+        return rendered;
+    }
+
+    private Buffer slice(int first, int last) {
+        if (first >= last) {
+            return Buffer.buffer(open() + close(true));
+        }
+        return Buffer.buffer(ends[last - 1] - starts[first] + 4)
+                .appendString(open())
+                .appendBuffer(body, starts[first], ends[last - 1] - starts[first])
+                .appendString(close(false));
+    }
+
+    /*
+     * Same layout as the full body (RESPONSE_FORMAT), each element only keeping the requested fields in their order.
+     */
+    private Buffer project(int first, int last, Set<String> fields) {
+        final ByteArrayBuilder output = new ByteArrayBuilder();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(output)) {
+            if (CachedResponse.isPrettyPrint()) {
+                generator.useDefaultPrettyPrinter();
+            }
+            generator.writeStartArray();
+            for (int i = first; i < last; i++) {
+                try (JsonParser parser = JSON_FACTORY.createParser(body.getBytes(starts[i], ends[i]))) {
+                    parser.nextToken();
+                    generator.writeStartObject();
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        final String name = parser.currentName();
+                        parser.nextToken();
+                        if (fields.contains(name)) {
+                            generator.writeFieldName(name);
+                            generator.copyCurrentStructure(parser);
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    generator.writeEndObject();
+                }
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Buffer.buffer(output.toByteArray());
+    }
+
+    private static String open() {
+        return CachedResponse.isPrettyPrint() ? "[ " : "[";
+    }
+
+    private static String separator() {
+        return CachedResponse.isPrettyPrint() ? ", " : ",";
+    }
+
+    private static String close(boolean empty) {
+        return CachedResponse.isPrettyPrint() && !empty ? " ]" : "]";
+    }
+}
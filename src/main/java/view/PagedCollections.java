@@ -0,0 +1,42 @@
+package view;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import model.CachedResponse;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PagedCollections holds the latest PagedCollection of each cached collection path, put by RedisClientManager
+ * whenever it renders one. A lookup only matches the generation the caller is serving (same ETag as its full
+ * response), so a page never mixes generations. One instance is shared by every verticle of a Vertx instance (through
+ * a local map).
+ */
+public class PagedCollections implements Shareable {
+
+    private static final String PAGED_COLLECTIONS_LOCAL_MAP = "pagedCollections";
+
+    private final Map<String, PagedCollection> collections = new ConcurrentHashMap<>();
+
+    public static PagedCollections get(Vertx vertx) {
+        LocalMap<String, PagedCollections> localMap = vertx.sharedData().getLocalMap(PAGED_COLLECTIONS_LOCAL_MAP);
+        return localMap.computeIfAbsent(PAGED_COLLECTIONS_LOCAL_MAP, key -> new PagedCollections());
+    }
+
+    /**
+     * @return the PagedCollection of path rendered from the same content as full, null if there is none.
+     */
+    public PagedCollection get(String path, CachedResponse full) {
+        final PagedCollection paged = collections.get(path);
+        return paged != null && paged.sameContentAs(full) ? paged : null;
+    }
+
+    /**
+     * Keeps the already stored instance (and its rendered pages) when the content is unchanged.
+     */
+    public void put(String path, PagedCollection paged) {
+        collections.merge(path, paged, (previous, latest) -> previous.sameContentAs(latest.getFull()) ? previous : latest);
+    }
+}
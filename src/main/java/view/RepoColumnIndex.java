@@ -0,0 +1,174 @@
+package view;
+
+import model.RepoRecord;
+import utils.CustomViewsUtil.VIEW_COLUMNS;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+/**
+ * RepoColumnIndex is an immutable columnar copy of one repos snapshot: one long[] per VIEW_COLUMNS numeric field and a
+ * dictionary-encoded language column, all indexed by row.
+ * Top / bottom N are answered by a bounded heap over row ids (O(rows log N)) instead of sorting the whole snapshot.
+ * Rows are totally ordered by column value descending, then full_name ascending: top N is the head of that order and
+ * bottom N its tail, which matches the Redis backed /view/bottom routes.
+ */
+public class RepoColumnIndex {
+
+    public static final int NO_LANGUAGE = -1;
+
+    private final int rows;
+    private final String[] fullNames;
+    private final long[][] columns;
+    private final int[] languageCodes;
+    private final Map<String, Integer> languageDictionary;
+
+    private RepoColumnIndex(int rows, String[] fullNames, long[][] columns, int[] languageCodes,
+                            Map<String, Integer> languageDictionary) {
+        this.rows = rows;
+        this.fullNames = fullNames;
+        this.columns = columns;
+        this.languageCodes = languageCodes;
+        this.languageDictionary = languageDictionary;
+    }
+
+    public static RepoColumnIndex build(List<RepoRecord> repos) {
+        final int rows = repos.size();
+        final String[] fullNames = new String[rows];
+        final long[][] columns = new long[VIEW_COLUMNS.values().length][rows];
+        final int[] languageCodes = new int[rows];
+        final Map<String, Integer> languageDictionary = new HashMap<>();
+        for (int row = 0; row < rows; row++) {
+            final RepoRecord repo = repos.get(row);
+            fullNames[row] = repo.getFullName();
+            for (VIEW_COLUMNS column : VIEW_COLUMNS.values()) {
+                columns[column.ordinal()][row] = repo.value(column);
+            }
+            final String language = repo.getLanguage();
+            languageCodes[row] = language == null ? NO_LANGUAGE :
+                    languageDictionary.computeIfAbsent(language.toLowerCase(), key -> languageDictionary.size());
+        }
+        return new RepoColumnIndex(rows, fullNames, columns, languageCodes, languageDictionary);
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    public String fullName(int row) {
+        return fullNames[row];
+    }
+
+    public long value(VIEW_COLUMNS column, int row) {
+        return columns[column.ordinal()][row];
+    }
+
+    public IntPredicate languageEquals(String language) {
+        final Integer code = languageDictionary.get(language.toLowerCase());
+        if (code == null) {
+            return row -> false;
+        }
+        return row -> languageCodes[row] == code;
+    }
+
+    public IntPredicate valueAtLeast(VIEW_COLUMNS column, long min) {
+        final long[] values = columns[column.ordinal()];
+        return row -> values[row] >= min;
+    }
+
+    public IntPredicate valueAtMost(VIEW_COLUMNS column, long max) {
+        final long[] values = columns[column.ordinal()];
+        return row -> values[row] <= max;
+    }
+
+    /**
+     * @return up to n row ids matching filter, in output order (value descending, full_name ascending).
+     */
+    public int[] select(VIEW_COLUMNS column, int n, boolean top, IntPredicate filter) {
+        final long[] values = columns[column.ordinal()];
+        final int capacity = Math.max(0, Math.min(n, rows));
+        // heap root is the selected row that would be dropped first: the last one in order for top, the first for bottom
+        final int[] heap = new int[capacity];
+        int heapSize = 0;
+        for (int row = 0; row < rows && capacity > 0; row++) {
+            if (!filter.test(row)) {
+                continue;
+            }
+            if (heapSize < capacity) {
+                heap[heapSize] = row;
+                siftUp(heap, heapSize++, values, top);
+            } else if (evictsFirst(heap[0], row, values, top)) {
+                heap[0] = row;
+                siftDown(heap, heapSize, values, top);
+            }
+        }
+        // drain the heap from the root: it yields rows in reverse of the eviction priority
+        final int[] selected = new int[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            final int root = heap[0];
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, values, top);
+            if (top) {
+                selected[i] = root;
+            } else {
+                selected[selected.length - 1 - i] = root;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Output order: value descending, then full_name ascending.
+     */
+    private int compare(int left, int right, long[] values) {
+        final int byValue = Long.compare(values[right], values[left]);
+        return byValue != 0 ? byValue : fullNames[left].compareTo(fullNames[right]);
+    }
+
+    /**
+     * @return true if heapRow should be evicted before candidate, i.e. candidate belongs in the selection instead.
+     */
+    private boolean evictsFirst(int heapRow, int candidate, long[] values, boolean top) {
+        final int order = compare(heapRow, candidate, values);
+        return top ? order > 0 : order < 0;
+    }
+
+    private void siftUp(int[] heap, int index, long[] values, boolean top) {
+        while (index > 0) {
+            final int parent = (index - 1) / 2;
+            if (!evictsFirst(heap[index], heap[parent], values, top)) {
+                return;
+            }
+            swap(heap, index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int heapSize, long[] values, boolean top) {
+        int index = 0;
+        while (true) {
+            final int left = 2 * index + 1;
+            final int right = left + 1;
+            int first = index;
+            if (left < heapSize && evictsFirst(heap[left], heap[first], values, top)) {
+                first = left;
+            }
+            if (right < heapSize && evictsFirst(heap[right], heap[first], values, top)) {
+                first = right;
+            }
+            if (first == index) {
+                return;
+            }
+            swap(heap, index, first);
+            index = first;
+        }
+    }
+
+    private static void swap(int[] heap, int i, int j) {
+        final int tmp = heap[i];
+        heap[i] = heap[j];
+        heap[j] = tmp;
+    }
+}
@@ -0,0 +1,86 @@
+package view;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import model.LeaderBoardOutputItem;
+import model.RepoRecord;
+import utils.CustomViewsUtil.VIEW_COLUMNS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * RepoViewEngine answers /view/:direction/:N/:column (e.g. /view/top/10/stars?language=Java&forks_min=5) from the
+ * latest RepoColumnIndex, rebuilt once per repos refresh and swapped atomically. One instance per org is shared by every
+ * verticle of a Vertx instance (through a local map), so queries never leave the calling event loop.
+ */
+public class RepoViewEngine implements Shareable {
+
+    private static final String VIEW_ENGINE_LOCAL_MAP = "repoViewEngine";
+    public static final String LANGUAGE_FILTER = "language";
+    public static final String MIN_SUFFIX = "_min";
+    public static final String MAX_SUFFIX = "_max";
+
+    private volatile RepoColumnIndex index;
+
+    public static RepoViewEngine get(Vertx vertx, String org) {
+        LocalMap<String, RepoViewEngine> localMap = vertx.sharedData().getLocalMap(VIEW_ENGINE_LOCAL_MAP);
+        return localMap.computeIfAbsent(org, key -> new RepoViewEngine());
+    }
+
+    public void update(List<RepoRecord> repos) {
+        index = RepoColumnIndex.build(repos);
+    }
+
+    public boolean isReady() {
+        return index != null;
+    }
+
+    /**
+     * @throws IllegalArgumentException on an unknown direction / column / filter or a malformed number.
+     */
+    public String query(String direction, String n, String column, MultiMap filters) {
+        final RepoColumnIndex snapshot = index;
+        final boolean top;
+        if ("top".equals(direction)) {
+            top = true;
+        } else if ("bottom".equals(direction)) {
+            top = false;
+        } else {
+            throw new IllegalArgumentException("Unknown view direction " + direction);
+        }
+        final VIEW_COLUMNS viewColumn = VIEW_COLUMNS.valueOf(column);
+        final int[] rows = snapshot.select(viewColumn, Integer.parseInt(n), top, toPredicate(snapshot, filters));
+
+        final List<LeaderBoardOutputItem> output = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            final long value = snapshot.value(viewColumn, row);
+            output.add(viewColumn == VIEW_COLUMNS.last_updated ?
+                    new LeaderBoardOutputItem(snapshot.fullName(row), String.valueOf(value)) :
+                    new LeaderBoardOutputItem(snapshot.fullName(row), (int) value));
+        }
+        return output.toString();
+    }
+
+    private static IntPredicate toPredicate(RepoColumnIndex snapshot, MultiMap filters) {
+        IntPredicate predicate = row -> true;
+        for (String name : filters.names()) {
+            final String value = filters.get(name);
+            if (name.equals(LANGUAGE_FILTER)) {
+                predicate = predicate.and(snapshot.languageEquals(value));
+            } else if (name.endsWith(MIN_SUFFIX)) {
+                final VIEW_COLUMNS column = VIEW_COLUMNS.valueOf(name.substring(0, name.length() - MIN_SUFFIX.length()));
+                predicate = predicate.and(snapshot.valueAtLeast(column, Long.parseLong(value)));
+            } else if (name.endsWith(MAX_SUFFIX)) {
+                final VIEW_COLUMNS column = VIEW_COLUMNS.valueOf(name.substring(0, name.length() - MAX_SUFFIX.length()));
+                predicate = predicate.and(snapshot.valueAtMost(column, Long.parseLong(value)));
+            } else {
+                throw new IllegalArgumentException("Unknown view filter " + name);
+            }
+        }
+        return predicate;
+    }
+}
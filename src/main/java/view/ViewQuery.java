@@ -0,0 +1,104 @@
+package view;
+
+import lombok.Getter;
+import utils.ApiPathUtil;
+import utils.CustomViewsUtil.CUSTOM_VIEWS;
+import utils.CustomViewsUtil.VIEW_COLUMNS;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * ViewQuery is one direction:N:column sub-query of /orgs/{org}/view/batch?q=bottom:5:stars,bottom:10:forks, the same
+ * view as /orgs/{org}/view/direction/N/column without filters. Bottom N of a CUSTOM_VIEWS column is served from its Redis sorted set,
+ * anything else by the view engine.
+ */
+@Getter
+public class ViewQuery {
+
+    public static final int MAX_BATCH_SIZE = 16;
+    private static final Set<String> DIRECTIONS = Set.of("top", "bottom");
+    private static final String BATCH_QUERY = "/view/batch?q=";
+
+    private final String org;
+    private final String direction;
+    private final int n;
+    private final String column;
+
+    private ViewQuery(String org, String direction, int n, String column) {
+        this.org = org;
+        this.direction = direction;
+        this.n = n;
+        this.column = column;
+    }
+
+    /**
+     * Duplicates are dropped, order is kept.
+     * @throws IllegalArgumentException on a malformed sub-query, an unknown direction / column, or too many sub-queries.
+     */
+    public static List<ViewQuery> parseBatch(String org, String q) {
+        if (q == null || q.isBlank()) {
+            throw new IllegalArgumentException("q is required, e.g. q=bottom:5:stars,bottom:10:forks");
+        }
+        final Set<String> keys = Arrays.stream(q.split(",")).map(String::trim).filter(key -> !key.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("q has no view, e.g. q=bottom:5:stars,bottom:10:forks");
+        }
+        if (keys.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_SIZE + " views per batch");
+        }
+        final List<ViewQuery> queries = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            final String[] parts = key.split(":");
+            if (parts.length != 3 || !DIRECTIONS.contains(parts[0])) {
+                throw new IllegalArgumentException("Malformed view " + key + ", expected direction:N:column");
+            }
+            VIEW_COLUMNS.valueOf(parts[2]);
+            try {
+                queries.add(new ViewQuery(org, parts[0], Integer.parseInt(parts[1]), parts[2]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed N in view " + key);
+            }
+        }
+        return queries;
+    }
+
+    public static String toBatch(List<ViewQuery> queries) {
+        return queries.stream().map(ViewQuery::key).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Near cache key (and event bus body) of a whole normalized batch, under /orgs/{org}/view/ like the single views it
+     * is made of.
+     */
+    public static String batchKey(List<ViewQuery> queries) {
+        return ApiPathUtil.orgViewPath(queries.get(0).getOrg(), BATCH_QUERY) + toBatch(queries);
+    }
+
+    public static List<ViewQuery> fromBatchKey(String batchKey) {
+        return parseBatch(ApiPathUtil.orgOf(batchKey), batchKey.substring(batchKey.indexOf(BATCH_QUERY) + BATCH_QUERY.length()));
+    }
+
+    public String key() {
+        return direction + ":" + n + ":" + column;
+    }
+
+    public String path() {
+        return ApiPathUtil.orgViewPath(org, "/view/" + direction + "/" + n + "/" + column);
+    }
+
+    /**
+     * @return the sorted set view serving this query, null if only the view engine can.
+     */
+    public CUSTOM_VIEWS leaderBoard() {
+        if (!"bottom".equals(direction)) {
+            return null;
+        }
+        return Arrays.stream(CUSTOM_VIEWS.values()).filter(view -> view.name().equals(column)).findFirst().orElse(null);
+    }
+}
@@ -0,0 +1,88 @@
+import cache.NearCache;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.ext.web.client.HttpRequest;
+import io.vertx.ext.web.client.HttpResponse;
+import io.vertx.ext.web.client.WebClient;
+import model.CachedResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import server.CachingService;
+
+import java.util.concurrent.TimeUnit;
+
+import static utils.ApiPathUtil.HEALTH_CHECK_PATH;
+
+public class CachingServiceConditionalTest {
+
+    private static final int PORT = 8080;
+    private static final String ORG_PATH = "/orgs/Netflix";
+
+    private Vertx vertx;
+    private WebClient webClient;
+    private NearCache nearCache;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        vertx = Vertx.vertx();
+        vertx.deployVerticle(CachingService.class.getName()).toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+        webClient = WebClient.create(vertx);
+        nearCache = NearCache.get(vertx);
+        final long deadline = System.currentTimeMillis() + 5_000;
+        while (!isListening()) { // the port is bound once the env config is read
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "server not started in time");
+            Thread.sleep(20);
+        }
+    }
+
+    @AfterEach
+    void stopServer() throws Exception {
+        vertx.close().toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void matchingValidators_get304_andARefreshGets200WithTheNewEtag() throws Exception {
+        nearCache.put(ORG_PATH, nearCache.withFreshness(CachedResponse.ofJsonObject("{\"login\":\"Netflix\",\"public_repos\":1}")));
+
+        HttpResponse<Buffer> first = get(ORG_PATH, null, null);
+        Assertions.assertEquals(200, first.statusCode());
+        String etag = first.getHeader(HttpHeaders.ETAG.toString());
+        String lastModified = first.getHeader(HttpHeaders.LAST_MODIFIED.toString());
+        Assertions.assertNotNull(etag);
+        Assertions.assertNotNull(lastModified);
+
+        HttpResponse<Buffer> byEtag = get(ORG_PATH, HttpHeaders.IF_NONE_MATCH.toString(), etag);
+        Assertions.assertEquals(304, byEtag.statusCode());
+        Assertions.assertNull(byEtag.body());
+        Assertions.assertEquals(etag, byEtag.getHeader(HttpHeaders.ETAG.toString()));
+        Assertions.assertEquals(304, get(ORG_PATH, HttpHeaders.IF_NONE_MATCH.toString(), "W/" + etag).statusCode());
+        Assertions.assertEquals(304, get(ORG_PATH, HttpHeaders.IF_MODIFIED_SINCE.toString(), lastModified).statusCode());
+        Assertions.assertEquals(200, get(ORG_PATH, HttpHeaders.IF_MODIFIED_SINCE.toString(),
+                "Mon, 01 Jan 2001 00:00:00 GMT").statusCode());
+
+        nearCache.put(ORG_PATH, nearCache.withFreshness(CachedResponse.ofJsonObject("{\"login\":\"Netflix\",\"public_repos\":2}")));
+        HttpResponse<Buffer> refreshed = get(ORG_PATH, HttpHeaders.IF_NONE_MATCH.toString(), etag);
+        Assertions.assertEquals(200, refreshed.statusCode());
+        Assertions.assertNotEquals(etag, refreshed.getHeader(HttpHeaders.ETAG.toString()));
+        Assertions.assertEquals(2, refreshed.bodyAsJsonObject().getInteger("public_repos"));
+    }
+
+    private HttpResponse<Buffer> get(String path, String header, String value) throws Exception {
+        HttpRequest<Buffer> request = webClient.get(PORT, "localhost", path);
+        if (header != null) {
+            request.putHeader(header, value);
+        }
+        return request.send().toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    private boolean isListening() {
+        try {
+            return get(HEALTH_CHECK_PATH, null, null).statusCode() == 200;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+import cache.RedisClientManager;
+import cache.RefreshLeaderElection;
+import git.GitClientManager;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import utils.CustomViewsUtil;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The refresh path end to end against FakeGitHubServer and LocalRedisStandIn: the first refresh stores the upstream
+ * ETags, the next one is sent with If-None-Match and its 304s write nothing to Redis.
+ */
+public class ConditionalRefreshTest {
+
+    private static final String ORG = "Netflix";
+    private static final String ORG_PATH = "/orgs/" + ORG;
+    private static final String REPOS_PATH = ORG_PATH + "/repos";
+    private static final String STARS_SET = CustomViewsUtil.CUSTOM_VIEWS.stars.setKey(ORG);
+    // "/", the org, one page of members and two pages of repos
+    private static final int REFRESHED_REQUESTS = 5;
+
+    private Vertx stubVertx;
+    private Vertx vertx;
+    private LocalRedisStandIn redis;
+    private FakeGitHubServer gitHub;
+
+    @BeforeEach
+    void start() throws Exception {
+        stubVertx = Vertx.vertx();
+        redis = new LocalRedisStandIn(stubVertx);
+        gitHub = new FakeGitHubServer(stubVertx, 150, 20, 0, 5000);
+        JsonObject config = new JsonObject()
+                .put(RedisClientManager.REDIS_URL, "redis://localhost:" + redis.start())
+                .put(GitClientManager.GITHUB_BASE_URL, "http://localhost:" + gitHub.start(0, 0))
+                .put(RedisClientManager.REFRESH_LEASE_MILLIS, 300);
+        vertx = Vertx.vertx();
+        vertx.deployVerticle(GitClientManager::new, new DeploymentOptions().setConfig(config))
+                .compose(id -> vertx.deployVerticle(RedisClientManager::new, new DeploymentOptions().setConfig(config)))
+                .toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    @AfterEach
+    void stop() throws Exception {
+        vertx.close().toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+        stubVertx.close();
+    }
+
+    @Test
+    void notModifiedRefresh_skipsTheRedisAndLeaderboardWrites() throws Exception {
+        // a deferred first refresh (e.g. a local snapshot) runs as soon as leadership is taken again
+        refreshEverything();
+        await(() -> redis.exists(ORG_PATH) && redis.exists(REPOS_PATH) && redis.exists(STARS_SET));
+        Thread.sleep(300); // the leaderboard batch of the same refresh
+
+        long hsets = redis.calls("HSET");
+        long zadds = redis.calls("ZADD");
+        long renames = redis.calls("RENAME");
+        redis.del(ORG_PATH);
+        redis.del(REPOS_PATH);
+        redis.del(STARS_SET);
+        long requests = gitHub.requests();
+        refreshEverything();
+        await(() -> gitHub.requests() >= requests + REFRESHED_REQUESTS);
+        Thread.sleep(300);
+
+        Assertions.assertEquals(hsets, redis.calls("HSET"));
+        Assertions.assertEquals(zadds, redis.calls("ZADD"));
+        Assertions.assertEquals(renames, redis.calls("RENAME"));
+        Assertions.assertFalse(redis.exists(ORG_PATH));
+        Assertions.assertFalse(redis.exists(REPOS_PATH));
+        Assertions.assertFalse(redis.exists(STARS_SET));
+    }
+
+    /*
+     * A new leader refreshes every path right away, conditionally.
+     */
+    private void refreshEverything() throws Exception {
+        String leaderKey = RefreshLeaderElection.leaderKey(ORG);
+        await(() -> redis.get(leaderKey) != null);
+        redis.del(leaderKey);
+        await(() -> redis.get(leaderKey) != null);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import model.CachedResponse;
+import utils.LocalReferenceCodec;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Measures the per request cost of the event bus hops between CachingService and RedisClientManager for a repos sized
+ * payload: the old dispatcher relay with String bodies, the dispatcher relay with CachedResponse passed by reference
+ * and the direct (EVENT_BUS_MODE=direct) path. Not a unit test, run it with main.
+ */
+public class EventBusHopBenchmark {
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 10_000;
+    private static final int REPOS = 1_000;
+
+    public static void main(String[] args) throws Exception {
+        final Vertx vertx = Vertx.vertx();
+        LocalReferenceCodec.register(vertx, CachedResponse.class);
+
+        final JsonArray repos = new JsonArray();
+        for (int i = 0; i < REPOS; i++) {
+            repos.add(new JsonObject().put("full_name", "Netflix/repo-" + i).put("forks", i).put("stargazers_count", i * 3)
+                    .put("description", "A reasonably long repository description used to inflate the payload " + i));
+        }
+        final String payload = repos.encodePrettily();
+        final CachedResponse rendered = CachedResponse.ofJsonArray(payload);
+
+        // owner verticle replies, relays forward like RequestRouteDispatcher used to (toString) and does now (as is)
+        vertx.eventBus().<String>consumer("owner.string").handler(msg -> msg.reply(payload));
+        vertx.eventBus().<String>consumer("owner.reference").handler(msg -> msg.reply(rendered));
+        vertx.eventBus().<String>consumer("relay.string").handler(msg -> vertx.eventBus().request("owner.string", msg.body())
+                .onSuccess(reply -> msg.reply(reply.body().toString())));
+        vertx.eventBus().<String>consumer("relay.reference").handler(msg -> vertx.eventBus().request("owner.reference", msg.body())
+                .onSuccess(reply -> msg.reply(reply.body())));
+
+        run(vertx, "dispatcher + String body (before)", "relay.string", body -> new JsonArray(body.toString()).encodePrettily());
+        run(vertx, "dispatcher + CachedResponse by reference", "relay.reference", body -> ((CachedResponse) body).getBody());
+        run(vertx, "direct + CachedResponse by reference (after)", "owner.reference", body -> ((CachedResponse) body).getBody());
+        vertx.close();
+    }
+
+    private static void run(Vertx vertx, String label, String address, Function<Object, Object> consume) throws Exception {
+        loop(vertx, address, WARMUP, consume).get();
+        final long start = System.nanoTime();
+        loop(vertx, address, ITERATIONS, consume).get();
+        final long elapsed = System.nanoTime() - start;
+        System.out.printf("%-48s %10.1f us/op %10.0f ops/s%n", label, elapsed / 1_000.0 / ITERATIONS,
+                ITERATIONS * 1_000_000_000.0 / elapsed);
+    }
+
+    private static CompletableFuture<Void> loop(Vertx vertx, String address, int iterations, Function<Object, Object> consume) {
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+        vertx.runOnContext(v -> next(vertx, address, iterations, consume, done));
+        return done;
+    }
+
+    private static void next(Vertx vertx, String address, int remaining, Function<Object, Object> consume,
+                             CompletableFuture<Void> done) {
+        if (remaining == 0) {
+            done.complete(null);
+            return;
+        }
+        vertx.eventBus().request(address, "/orgs/Netflix/repos").onSuccess(reply -> {
+            consume.apply(reply.body());
+            next(vertx, address, remaining - 1, consume, done);
+        }).onFailure(done::completeExceptionally);
+    }
+}
@@ -0,0 +1,191 @@
+import cache.RepoFixtures;
+import com.google.common.hash.Hashing;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FakeGitHubServer stands in for api.github.com in load tests (point GITHUB_BASE_URL at it): /, /orgs/{org},
+ * paginated /orgs/{org}/repos and /orgs/{org}/members (per_page / page with a GitHub style link header), and a small
+ * JSON object for any other path. Every response carries a strong ETag honoured by If-None-Match and the
+ * X-RateLimit headers of an hourly window of rateLimit requests, 304s not counted, like GitHub.
+ * Responses are delayed by latencyMillis +/- 20%. Every changeIntervalMillis one repo in ten gains a star, so
+ * refreshes see changed data. Run main with key=value args to serve it standalone.
+ */
+public class FakeGitHubServer {
+
+    private final Vertx vertx;
+    private final int repoCount;
+    private final int memberCount;
+    private final long latencyMillis;
+    private final long rateLimit;
+    private final Map<String, JsonArray> reposByOrg = new ConcurrentHashMap<>();
+    private final AtomicLong remaining = new AtomicLong();
+    private volatile long windowResetEpochSeconds;
+    private final AtomicLong requests = new AtomicLong();
+    private HttpServer server;
+
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = LoadGenerator.options(args);
+        final FakeGitHubServer server = new FakeGitHubServer(Vertx.vertx(), Integer.parseInt(options.getOrDefault("repos", "1000")),
+                Integer.parseInt(options.getOrDefault("members", "300")), Long.parseLong(options.getOrDefault("latency", "50")),
+                Long.parseLong(options.getOrDefault("rateLimit", "5000")));
+        final int port = server.start(Integer.parseInt(options.getOrDefault("port", "9090")),
+                Long.parseLong(options.getOrDefault("changeInterval", "30000")));
+        System.out.println("Fake GitHub listening on " + port);
+    }
+
+    public FakeGitHubServer(Vertx vertx, int repoCount, int memberCount, long latencyMillis, long rateLimit) {
+        this.vertx = vertx;
+        this.repoCount = repoCount;
+        this.memberCount = memberCount;
+        this.latencyMillis = latencyMillis;
+        this.rateLimit = rateLimit;
+        resetWindow();
+    }
+
+    public int start(int port, long changeIntervalMillis) throws Exception {
+        if (changeIntervalMillis > 0) {
+            vertx.setPeriodic(changeIntervalMillis, id -> reposByOrg.values().forEach(FakeGitHubServer::starOneInTen));
+        }
+        server = vertx.createHttpServer().requestHandler(request -> {
+            final long delay = latencyMillis <= 0 ? 0 :
+                    Math.max(1, (long) (latencyMillis * (0.8 + ThreadLocalRandom.current().nextDouble() * 0.4)));
+            if (delay == 0) {
+                respond(request);
+            } else {
+                vertx.setTimer(delay, id -> respond(request));
+            }
+        });
+        return server.listen(port, "localhost").toCompletionStage().toCompletableFuture().get().actualPort();
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    private void respond(HttpServerRequest request) {
+        requests.incrementAndGet();
+        final String[] segments = request.path().split("/");
+        final Page page;
+        if (segments.length == 4 && "orgs".equals(segments[1]) && "repos".equals(segments[3])) {
+            page = paginate(request, repos(segments[2]));
+        } else if (segments.length == 4 && "orgs".equals(segments[1]) && "members".equals(segments[3])) {
+            page = paginate(request, members(segments[2]));
+        } else if (segments.length == 3 && "orgs".equals(segments[1])) {
+            page = new Page(new JsonObject().put("login", segments[2]).put("id", 913567).put("type", "Organization")
+                    .put("public_repos", repoCount).put("html_url", "https://github.com/" + segments[2]).toBuffer(), null);
+        } else if (segments.length == 0) {
+            page = new Page(new JsonObject().put("current_user_url", "https://api.github.com/user")
+                    .put("organization_url", "https://api.github.com/orgs/{org}")
+                    .put("repository_url", "https://api.github.com/repos/{owner}/{repo}").toBuffer(), null);
+        } else {
+            page = new Page(new JsonObject().put("path", request.path()).put("fake", true).toBuffer(), null);
+        }
+
+        final String etag = "\"" + Hashing.murmur3_128().hashBytes(page.body.getBytes()) + "\"";
+        final long now = System.currentTimeMillis() / 1000;
+        if (now >= windowResetEpochSeconds) {
+            resetWindow();
+        }
+        request.response()
+                .putHeader("ETag", etag)
+                .putHeader("Cache-Control", "private, max-age=60, s-maxage=60")
+                .putHeader("X-RateLimit-Limit", String.valueOf(rateLimit))
+                .putHeader("X-RateLimit-Reset", String.valueOf(windowResetEpochSeconds));
+        if (etag.equals(request.getHeader("If-None-Match"))) {
+            request.response()
+                    .putHeader("X-RateLimit-Remaining", String.valueOf(Math.max(0, remaining.get())))
+                    .setStatusCode(304)
+                    .end();
+            return;
+        }
+        final long left = remaining.decrementAndGet();
+        request.response().putHeader("X-RateLimit-Remaining", String.valueOf(Math.max(0, left)));
+        if (left < 0) {
+            request.response().setStatusCode(403).end(new JsonObject().put("message", "API rate limit exceeded").toBuffer());
+            return;
+        }
+        if (page.link != null) {
+            request.response().putHeader("link", page.link);
+        }
+        request.response()
+                .putHeader("Content-Type", "application/json; charset=utf-8")
+                .end(page.body);
+    }
+
+    private void resetWindow() {
+        windowResetEpochSeconds = System.currentTimeMillis() / 1000 + 3600;
+        remaining.set(rateLimit);
+    }
+
+    private JsonArray repos(String org) {
+        return reposByOrg.computeIfAbsent(org, key -> RepoFixtures.repos(key, repoCount));
+    }
+
+    private JsonArray members(String org) {
+        final JsonArray members = new JsonArray();
+        for (int i = 0; i < memberCount; i++) {
+            members.add(new JsonObject().put("login", org.toLowerCase() + "-member-" + i).put("id", 5_000_000L + i)
+                    .put("url", "https://api.github.com/users/" + org.toLowerCase() + "-member-" + i).put("type", "User"));
+        }
+        return members;
+    }
+
+    private static Page paginate(HttpServerRequest request, JsonArray all) {
+        final int perPage = Math.max(1, Math.min(100, parseInt(request.getParam("per_page"), 30)));
+        final int lastPage = Math.max(1, (all.size() + perPage - 1) / perPage);
+        final int pageNumber = Math.max(1, parseInt(request.getParam("page"), 1));
+        final Buffer body;
+        synchronized (all) { // starOneInTen mutates the repos in place
+            final JsonArray items = new JsonArray();
+            for (int i = (pageNumber - 1) * perPage; i < Math.min(all.size(), pageNumber * perPage); i++) {
+                items.add(all.getValue(i));
+            }
+            body = items.toBuffer();
+        }
+        final String base = "http://" + request.host() + request.path() + "?per_page=" + perPage + "&page=";
+        final StringBuilder link = new StringBuilder();
+        if (pageNumber < lastPage) {
+            link.append('<').append(base).append(pageNumber + 1).append(">; rel=\"next\", ");
+        }
+        link.append('<').append(base).append(lastPage).append(">; rel=\"last\"");
+        return new Page(body, link.toString());
+    }
+
+    private static void starOneInTen(JsonArray repos) {
+        synchronized (repos) {
+            final int offset = ThreadLocalRandom.current().nextInt(10);
+            for (int i = offset; i < repos.size(); i += 10) {
+                final JsonObject repo = repos.getJsonObject(i);
+                repo.put("stargazers_count", repo.getInteger("stargazers_count") + 1);
+            }
+        }
+    }
+
+    private static int parseInt(String value, int fallback) {
+        try {
+            return value == null ? fallback : Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    private static class Page {
+        private final Buffer body;
+        private final String link;
+
+        private Page(Buffer body, String link) {
+            this.body = body;
+            this.link = link;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+import cache.LeaderBoardBuilder;
+import cache.RepoFixtures;
+import git.RepoPageParser;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.redis.client.Command;
+import io.vertx.redis.client.Redis;
+import io.vertx.redis.client.RedisOptions;
+import io.vertx.redis.client.Request;
+import io.vertx.redis.client.Response;
+import model.RepoRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import utils.CustomViewsUtil;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class LeaderBoardBuilderTest {
+
+    private static final String ORG = "Netflix";
+    private static final int VIEWS = CustomViewsUtil.CUSTOM_VIEWS.values().length;
+
+    private Vertx vertx;
+    private LocalRedisStandIn redis;
+    private Redis client;
+    private final RepoPageParser parser = new RepoPageParser(false);
+    private final LeaderBoardBuilder builder = new LeaderBoardBuilder(ORG);
+
+    @BeforeEach
+    void startRedis() throws Exception {
+        vertx = Vertx.vertx();
+        redis = new LocalRedisStandIn(vertx);
+        client = Redis.createClient(vertx, new RedisOptions().setConnectionString("redis://localhost:" + redis.start()));
+    }
+
+    @AfterEach
+    void stopRedis() {
+        vertx.close();
+    }
+
+    @Test
+    void diff_onlyAddsChangedScores_andRemovesGoneRepos() throws Exception {
+        JsonArray repos = RepoFixtures.repos(ORG, 20);
+        apply(builder.diff(parse(repos)));
+        Assertions.assertEquals(VIEWS, redis.calls("DEL"));
+        Assertions.assertEquals(VIEWS, redis.calls("ZADD"));
+        Assertions.assertEquals(20, stars().size());
+
+        repos.getJsonObject(3).put("stargazers_count", 99_999);
+        String gone = repos.getJsonObject(5).getString("full_name");
+        repos.remove(5);
+        List<Request> batch = builder.diff(parse(repos));
+        Assertions.assertEquals(2 + 1 + VIEWS, batch.size()); // MULTI, the one stars ZADD, a ZREM per view, EXEC
+        apply(batch);
+
+        Assertions.assertEquals(VIEWS, redis.calls("DEL"));
+        Assertions.assertEquals(VIEWS + 1, redis.calls("ZADD"));
+        Assertions.assertEquals(VIEWS, redis.calls("ZREM"));
+        Map<String, Long> stars = stars();
+        Assertions.assertEquals(19, stars.size());
+        Assertions.assertFalse(stars.containsKey(gone));
+        Assertions.assertEquals(-99_999L, stars.get(ORG + "/repo-3"));
+        Assertions.assertEquals(ORG + "/repo-3", stars.keySet().iterator().next()); // highest value first
+
+        Assertions.assertTrue(builder.diff(parse(repos)).isEmpty());
+    }
+
+    @Test
+    void reset_forcesAFullRebuild() throws Exception {
+        JsonArray repos = RepoFixtures.repos(ORG, 20);
+        apply(builder.diff(parse(repos)));
+        redis.del(CustomViewsUtil.CUSTOM_VIEWS.stars.setKey(ORG));
+        Assertions.assertFalse(builder.isEmpty());
+
+        builder.reset();
+        Assertions.assertTrue(builder.isEmpty());
+        apply(builder.diff(parse(repos)));
+
+        Assertions.assertEquals(2 * VIEWS, redis.calls("DEL"));
+        Assertions.assertEquals(2 * VIEWS, redis.calls("ZADD"));
+        Assertions.assertEquals(20, stars().size());
+    }
+
+    private List<RepoRecord> parse(JsonArray repos) {
+        return parser.parseArray(repos.toBuffer());
+    }
+
+    private void apply(List<Request> batch) throws Exception {
+        client.batch(batch).toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    /*
+     * Stars set in Redis order (stored scores are negated values), member to stored score.
+     */
+    private Map<String, Long> stars() throws Exception {
+        Response range = client.send(Request.cmd(Command.ZRANGE)
+                .arg(CustomViewsUtil.CUSTOM_VIEWS.stars.setKey(ORG)).arg(0).arg(-1).arg("WITHSCORES"))
+                .toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+        Map<String, Long> scores = new LinkedHashMap<>();
+        for (int i = 0; i < range.size(); i += 2) {
+            scores.put(range.get(i).toString(), range.get(i + 1).toLong());
+        }
+        return scores;
+    }
+}
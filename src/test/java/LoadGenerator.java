@@ -0,0 +1,205 @@
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * LoadGenerator drives every route family of a running service at a fixed request rate (open loop: requests are sent
+ * on schedule whatever the response times, and latency is measured from the scheduled send time so a stalled server
+ * shows up in the percentiles instead of slowing the generator down). After warmup seconds it records duration
+ * seconds and prints throughput, errors and p50 / p99 / p999 / max per family.
+ * Run main with key=value args: target, rate, duration, warmup, connections, gzip, mix (family:weight,...) and orgs
+ * (comma separated, the orgs family picks one of them per request).
+ */
+public class LoadGenerator {
+
+    private static final Map<String, Supplier<String>> FAMILIES = new LinkedHashMap<>();
+    private static final long TICK_MILLIS = 5;
+    private static volatile String[] orgs = {"Netflix"};
+
+    static {
+        FAMILIES.put("cached", () -> pick("/", "/orgs/Netflix"));
+        FAMILIES.put("paginated", () -> pick("/orgs/Netflix/repos", "/orgs/Netflix/members"));
+        FAMILIES.put("page", () -> pick("/orgs/Netflix/repos?per_page=10&page=", "/orgs/Netflix/members?page=",
+                "/orgs/Netflix/repos?fields=full_name,stargazers_count&per_page=20&page=") + (1 + ThreadLocalRandom.current().nextInt(5)));
+        FAMILIES.put("view", () -> pick("/view/bottom/5/stars", "/view/bottom/10/forks", "/view/bottom/5/last_updated",
+                "/view/bottom/10/open_issues", "/view/top/10/stars?language=Java",
+                "/view/batch?q=bottom:5:stars,bottom:10:forks,top:5:watchers"));
+        FAMILIES.put("orgs", () -> "/orgs/" + orgs[ThreadLocalRandom.current().nextInt(orgs.length)]
+                + pick("/repos", "/members?page=2", "/view/bottom/5/stars", "/view/top/10/forks?language=Java",
+                "/view/batch?q=bottom:5:stars,bottom:10:open_issues"));
+        FAMILIES.put("proxy", () -> "/repos/Netflix/repo-" + ThreadLocalRandom.current().nextInt(200));
+        FAMILIES.put("health", () -> "/healthcheck");
+    }
+
+    private final Vertx vertx;
+    private final URI target;
+    private final int rate;
+    private final int connections;
+    private final boolean gzip;
+    private final String[] schedule;
+
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = options(args);
+        final Vertx vertx = Vertx.vertx();
+        final LoadGenerator generator = new LoadGenerator(vertx, options);
+        generator.run(Integer.parseInt(options.getOrDefault("warmup", "10")),
+                Integer.parseInt(options.getOrDefault("duration", "30"))).print();
+        vertx.close();
+    }
+
+    public static Map<String, String> options(String[] args) {
+        final Map<String, String> options = new LinkedHashMap<>();
+        Arrays.stream(args).map(arg -> arg.split("=", 2)).filter(pair -> pair.length == 2)
+                .forEach(pair -> options.put(pair[0], pair[1]));
+        return options;
+    }
+
+    public LoadGenerator(Vertx vertx, Map<String, String> options) {
+        this.vertx = vertx;
+        this.target = URI.create(options.getOrDefault("target", "http://localhost:8080"));
+        this.rate = Integer.parseInt(options.getOrDefault("rate", "200"));
+        this.connections = Integer.parseInt(options.getOrDefault("connections", "64"));
+        this.gzip = Boolean.parseBoolean(options.getOrDefault("gzip", "true"));
+        orgs = options.getOrDefault("orgs", String.join(",", orgs)).split(",");
+        this.schedule = schedule(options.getOrDefault("mix", "cached:25,paginated:20,view:30,proxy:20,health:5"));
+    }
+
+    /*
+     * One slot per weight unit, walked round robin so the mix holds at any rate.
+     */
+    private static String[] schedule(String mix) {
+        return Arrays.stream(mix.split(","))
+                .map(entry -> entry.split(":"))
+                .filter(entry -> FAMILIES.containsKey(entry[0]))
+                .flatMap(entry -> Collections.nCopies(Integer.parseInt(entry[1]), entry[0]).stream())
+                .toArray(String[]::new);
+    }
+
+    public Report run(int warmupSeconds, int durationSeconds) throws InterruptedException {
+        final HttpClient client = vertx.createHttpClient(new HttpClientOptions()
+                .setDefaultHost(target.getHost())
+                .setDefaultPort(target.getPort() > 0 ? target.getPort() : 80)
+                .setKeepAlive(true)
+                .setMaxPoolSize(connections)
+                .setTryUseCompression(gzip));
+        final Report report = new Report(durationSeconds);
+        final long start = System.nanoTime();
+        final long recordFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        final long end = recordFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        final long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        final CountDownLatch done = new CountDownLatch(1);
+        final long[] sent = {0};
+        final AtomicLong outstanding = new AtomicLong();
+
+        vertx.setPeriodic(TICK_MILLIS, timerId -> {
+            final long now = System.nanoTime();
+            while (start + sent[0] * intervalNanos <= Math.min(now, end)) {
+                final long scheduledAt = start + sent[0] * intervalNanos;
+                final String family = schedule[(int) (sent[0] % schedule.length)];
+                sent[0]++;
+                outstanding.incrementAndGet();
+                client.request(HttpMethod.GET, FAMILIES.get(family).get())
+                        .compose(request -> request.putHeader(HttpHeaders.ACCEPT, "application/json").send())
+                        .compose(response -> response.body().map(body -> response.statusCode()))
+                        .onComplete(result -> {
+                            if (scheduledAt >= recordFrom) {
+                                report.record(family, System.nanoTime() - scheduledAt,
+                                        result.succeeded() && result.result() < 500);
+                            }
+                            if (outstanding.decrementAndGet() == 0 && System.nanoTime() > end) {
+                                done.countDown();
+                            }
+                        });
+            }
+            if (now > end) {
+                vertx.cancelTimer(timerId);
+                if (outstanding.get() == 0) {
+                    done.countDown();
+                }
+            }
+        });
+        done.await(warmupSeconds + durationSeconds + 60L, TimeUnit.SECONDS);
+        client.close();
+        return report;
+    }
+
+    private static String pick(String... paths) {
+        return paths[ThreadLocalRandom.current().nextInt(paths.length)];
+    }
+
+    /**
+     * Latencies in nanos per family, responses complete on whichever event loop owns their connection.
+     */
+    public static class Report {
+
+        private final int durationSeconds;
+        private final Map<String, long[]> latencies = new LinkedHashMap<>();
+        private final Map<String, Integer> counts = new LinkedHashMap<>();
+        private final Map<String, Integer> errors = new LinkedHashMap<>();
+
+        Report(int durationSeconds) {
+            this.durationSeconds = durationSeconds;
+        }
+
+        synchronized void record(String family, long latencyNanos, boolean succeeded) {
+            final int count = counts.getOrDefault(family, 0);
+            long[] values = latencies.computeIfAbsent(family, key -> new long[1024]);
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+                latencies.put(family, values);
+            }
+            values[count] = latencyNanos;
+            counts.put(family, count + 1);
+            if (!succeeded) {
+                errors.merge(family, 1, Integer::sum);
+            }
+        }
+
+        public synchronized void print() {
+            System.out.printf("%-10s %9s %8s %9s %9s %9s %9s %9s%n", "family", "requests", "errors", "req/s",
+                    "p50 ms", "p99 ms", "p999 ms", "max ms");
+            long[] all = new long[0];
+            int total = 0;
+            for (String family : counts.keySet()) {
+                final long[] values = Arrays.copyOf(latencies.get(family), counts.get(family));
+                printRow(family, values, errors.getOrDefault(family, 0));
+                all = concat(all, values);
+                total += errors.getOrDefault(family, 0);
+            }
+            printRow("all", all, total);
+        }
+
+        private void printRow(String family, long[] values, int errorCount) {
+            Arrays.sort(values);
+            System.out.printf("%-10s %9d %8d %9.1f %9.2f %9.2f %9.2f %9.2f%n", family, values.length, errorCount,
+                    values.length / (double) durationSeconds, percentile(values, 0.5), percentile(values, 0.99),
+                    percentile(values, 0.999), values.length == 0 ? 0 : values[values.length - 1] / 1e6);
+        }
+
+        private static double percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+        }
+
+        private static long[] concat(long[] first, long[] second) {
+            final long[] joined = Arrays.copyOf(first, first.length + second.length);
+            System.arraycopy(second, 0, joined, first.length, second.length);
+            return joined;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+import io.vertx.core.Vertx;
+import io.vertx.ext.web.client.WebClient;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LoadTestHarness runs a self-contained load test: a FakeGitHubServer and a LocalRedisStandIn (or the Redis at
+ * redis=redis://...) in this JVM, the service itself as a child JVM (app.MainApplication on this classpath, output in
+ * target/load-test-app.log) pointed at both, then a LoadGenerator against it once the paginated refresh is served.
+ * Args are key=value: repos, members, latency, rateLimit, changeInterval for GitHub, rate, duration, warmup,
+ * connections, gzip, mix, orgs for the generator (orgs is also the service's ORGS), appPort, and env.NAME=value for
+ * any env var of the service (e.g. env.EVENT_BUS_MODE=direct env.DEPLOYMENT_MODE=event-loop). Not a unit test, run it with main.
+ */
+public class LoadTestHarness {
+
+    public static void main(String[] args) throws Exception {
+        final Map<String, String> options = LoadGenerator.options(args);
+        final Vertx vertx = Vertx.vertx();
+        final FakeGitHubServer gitHub = new FakeGitHubServer(vertx, Integer.parseInt(options.getOrDefault("repos", "1000")),
+                Integer.parseInt(options.getOrDefault("members", "300")), Long.parseLong(options.getOrDefault("latency", "50")),
+                Long.parseLong(options.getOrDefault("rateLimit", "5000")));
+        final int gitHubPort = gitHub.start(0, Long.parseLong(options.getOrDefault("changeInterval", "30000")));
+        final String redisUrl = options.containsKey("redis") ? options.get("redis") :
+                "redis://localhost:" + new LocalRedisStandIn(vertx).start();
+        final int appPort = Integer.parseInt(options.getOrDefault("appPort", "8080"));
+
+        final ProcessBuilder app = new ProcessBuilder("java", "-cp", System.getProperty("java.class.path"), "app.MainApplication")
+                .redirectErrorStream(true)
+                .redirectOutput(new File("target/load-test-app.log"));
+        app.environment().put("APP_PORT", String.valueOf(appPort));
+        app.environment().put("REDIS_URL", redisUrl);
+        app.environment().put("GITHUB_BASE_URL", "http://localhost:" + gitHubPort);
+        app.environment().put("GITHUB_API_TOKEN", "load-test");
+        if (options.containsKey("orgs")) {
+            app.environment().put("ORGS", options.get("orgs"));
+        }
+        options.forEach((key, value) -> {
+            if (key.startsWith("env.")) {
+                app.environment().put(key.substring("env.".length()), value);
+            }
+        });
+        System.out.println("Fake GitHub on " + gitHubPort + ", Redis " + redisUrl + ", service on " + appPort);
+        final Process service = app.start();
+        try {
+            awaitReady(vertx, appPort, options.getOrDefault("orgs", "Netflix").split(",")[0]);
+            final long gitHubRequestsBefore = gitHub.requests();
+            final LoadGenerator.Report report = new LoadGenerator(vertx, withTarget(options, appPort))
+                    .run(Integer.parseInt(options.getOrDefault("warmup", "10")), Integer.parseInt(options.getOrDefault("duration", "30")));
+            report.print();
+            System.out.println("GitHub requests during the run " + (gitHub.requests() - gitHubRequestsBefore));
+        } finally {
+            service.destroy();
+            service.waitFor(10, TimeUnit.SECONDS);
+            vertx.close();
+        }
+    }
+
+    private static Map<String, String> withTarget(Map<String, String> options, int appPort) {
+        options.putIfAbsent("target", "http://localhost:" + appPort);
+        return options;
+    }
+
+    /*
+     * Ready once the repos collection is served, the leaderboard is built from the same refresh.
+     */
+    private static void awaitReady(Vertx vertx, int appPort, String org) throws Exception {
+        final WebClient client = WebClient.create(vertx);
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(120);
+        while (System.currentTimeMillis() < deadline) {
+            try {
+                final int status = client.get(appPort, "localhost", "/orgs/" + org + "/repos").send()
+                        .toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS).statusCode();
+                if (status == 200) {
+                    client.close();
+                    return;
+                }
+            } catch (Exception e) {
+                // not listening yet
+            }
+            Thread.sleep(500);
+        }
+        client.close();
+        throw new IllegalStateException("Service not ready after 120s, see target/load-test-app.log");
+    }
+}
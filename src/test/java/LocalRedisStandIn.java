@@ -0,0 +1,417 @@
+import cache.RefreshLeaderElection;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetServer;
+import io.vertx.core.net.NetSocket;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * LocalRedisStandIn is an in-process RESP2 server speaking just enough Redis for the tests and the load test harness:
+ * PING, GET, SET (NX / XX / PX / EX), DEL, PEXPIRE, PEXPIREAT, PTTL, RENAME, HSET, HVALS, HMGET, ZADD, ZREM, ZRANGE
+ * (WITHSCORES), MULTI / EXEC, PUBLISH / SUBSCRIBE and EVAL of the RefreshLeaderElection scripts. Anything else
+ * answers an error, HELLO included so clients fall back to RESP2. Run main to serve it on a fixed port.
+ */
+public class LocalRedisStandIn {
+
+    private static final String WRONGTYPE = "WRONGTYPE Operation against a key holding the wrong kind of value";
+
+    private final Vertx vertx;
+    private final Map<String, Entry> data = new HashMap<>();
+    private final Map<String, Function<List<String>, Object>> commands = new HashMap<>();
+    private final Map<String, Set<NetSocket>> subscribers = new HashMap<>();
+    private final Map<String, Long> calls = new HashMap<>();
+    private NetServer server;
+
+    public static void main(String[] args) throws Exception {
+        final int port = new LocalRedisStandIn(Vertx.vertx()).start(args.length > 0 ? Integer.parseInt(args[0]) : 6379);
+        System.out.println("Redis stand-in listening on " + port);
+    }
+
+    public LocalRedisStandIn(Vertx vertx) {
+        this.vertx = vertx;
+        commands.put("PING", args -> new Status("PONG"));
+        commands.put("GET", args -> {
+            final Entry entry = live(args.get(1));
+            return entry == null ? null : entry.value instanceof String ? entry.value : new ErrorReply(WRONGTYPE);
+        });
+        commands.put("SET", this::set);
+        commands.put("DEL", args -> {
+            long removed = 0;
+            for (String key : args.subList(1, args.size())) {
+                removed += live(key) == null ? 0 : 1;
+                data.remove(key);
+            }
+            return removed;
+        });
+        commands.put("PEXPIRE", args -> expireAt(args.get(1), System.currentTimeMillis() + Long.parseLong(args.get(2))));
+        commands.put("PEXPIREAT", args -> expireAt(args.get(1), Long.parseLong(args.get(2))));
+        commands.put("PTTL", args -> {
+            final Entry entry = live(args.get(1));
+            return entry == null ? -2L : entry.expiresAt == Long.MAX_VALUE ? -1L : entry.expiresAt - System.currentTimeMillis();
+        });
+        commands.put("RENAME", args -> {
+            final Entry entry = live(args.get(1));
+            if (entry == null) {
+                return new ErrorReply("ERR no such key");
+            }
+            data.remove(args.get(1));
+            data.put(args.get(2), entry);
+            return new Status("OK");
+        });
+        commands.put("HSET", this::hset);
+        commands.put("HVALS", args -> {
+            final Map<String, String> hash = typed(args.get(1), Map.class);
+            return hash == null ? List.of() : new ArrayList<>(hash.values());
+        });
+        commands.put("HMGET", args -> {
+            final Map<String, String> hash = typed(args.get(1), Map.class);
+            final List<String> values = new ArrayList<>();
+            args.subList(2, args.size()).forEach(field -> values.add(hash == null ? null : hash.get(field)));
+            return values;
+        });
+        commands.put("ZADD", this::zadd);
+        commands.put("ZREM", args -> {
+            final SortedSet set = typed(args.get(1), SortedSet.class);
+            long removed = 0;
+            for (String member : args.subList(2, args.size())) {
+                removed += set != null && set.scores.remove(member) != null ? 1 : 0;
+            }
+            return removed;
+        });
+        commands.put("ZRANGE", this::zrange);
+        commands.put("PUBLISH", args -> publish(args.get(1), args.get(2)));
+        commands.put("EVAL", this::eval);
+    }
+
+    public int start() throws Exception {
+        return start(0);
+    }
+
+    public int start(int port) throws Exception {
+        server = vertx.createNetServer().connectHandler(this::handle);
+        return server.listen(port, "localhost").toCompletionStage().toCompletableFuture().get().actualPort();
+    }
+
+    public synchronized String get(String key) {
+        final Entry entry = live(key);
+        return entry != null && entry.value instanceof String ? (String) entry.value : null;
+    }
+
+    public synchronized boolean exists(String key) {
+        return live(key) != null;
+    }
+
+    public synchronized void del(String key) {
+        data.remove(key);
+    }
+
+    /**
+     * @return how many times command (e.g. ZADD) was executed, queued ones counted when their EXEC runs
+     */
+    public synchronized long calls(String command) {
+        return calls.getOrDefault(command.toUpperCase(), 0L);
+    }
+
+    private Entry live(String key) {
+        final Entry entry = data.get(key);
+        if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+            data.remove(key);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * @return the value of key, null if there is none
+     * @throws WrongType if key holds another type
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T typed(String key, Class<? super T> type) {
+        final Entry entry = live(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!type.isInstance(entry.value)) {
+            throw new WrongType();
+        }
+        return (T) entry.value;
+    }
+
+    private <T> T typedOrCreate(String key, Class<? super T> type, T empty) {
+        final T existing = typed(key, type);
+        if (existing != null) {
+            return existing;
+        }
+        data.put(key, new Entry(empty, Long.MAX_VALUE));
+        return empty;
+    }
+
+    private Object set(List<String> args) {
+        long expiresAt = Long.MAX_VALUE;
+        boolean nx = false;
+        boolean xx = false;
+        for (int i = 3; i < args.size(); i++) {
+            switch (args.get(i).toUpperCase()) {
+                case "NX": nx = true; break;
+                case "XX": xx = true; break;
+                case "PX": expiresAt = System.currentTimeMillis() + Long.parseLong(args.get(++i)); break;
+                case "EX": expiresAt = System.currentTimeMillis() + Long.parseLong(args.get(++i)) * 1000; break;
+                default: return new ErrorReply("ERR syntax error");
+            }
+        }
+        final boolean exists = live(args.get(1)) != null;
+        if ((nx && exists) || (xx && !exists)) {
+            return null;
+        }
+        data.put(args.get(1), new Entry(args.get(2), expiresAt));
+        return new Status("OK");
+    }
+
+    private long expireAt(String key, long epochMillis) {
+        final Entry entry = live(key);
+        if (entry == null) {
+            return 0;
+        }
+        data.put(key, new Entry(entry.value, epochMillis));
+        return 1;
+    }
+
+    private Object hset(List<String> args) {
+        final Map<String, String> hash = typedOrCreate(args.get(1), Map.class, new LinkedHashMap<String, String>());
+        long added = 0;
+        for (int i = 2; i + 1 < args.size(); i += 2) {
+            added += hash.put(args.get(i), args.get(i + 1)) == null ? 1 : 0;
+        }
+        return added;
+    }
+
+    private Object zadd(List<String> args) {
+        final SortedSet set = typedOrCreate(args.get(1), SortedSet.class, new SortedSet());
+        long added = 0;
+        for (int i = 2; i + 1 < args.size(); i += 2) {
+            added += set.scores.put(args.get(i + 1), Double.parseDouble(args.get(i))) == null ? 1 : 0;
+        }
+        return added;
+    }
+
+    /*
+     * Ordered by score then member like Redis, negative indexes count from the end.
+     */
+    private Object zrange(List<String> args) {
+        final SortedSet set = typed(args.get(1), SortedSet.class);
+        if (set == null) {
+            return List.of();
+        }
+        final boolean withScores = args.size() > 4 && "WITHSCORES".equalsIgnoreCase(args.get(4));
+        final List<Map.Entry<String, Double>> ordered = new ArrayList<>(set.scores.entrySet());
+        ordered.sort(Map.Entry.<String, Double>comparingByValue().thenComparing(Map.Entry.comparingByKey(Comparator.naturalOrder())));
+        final int size = ordered.size();
+        final int start = Math.max(0, index(Integer.parseInt(args.get(2)), size));
+        final int stop = Math.min(size - 1, index(Integer.parseInt(args.get(3)), size));
+        final List<String> reply = new ArrayList<>();
+        for (int i = start; i <= stop; i++) {
+            reply.add(ordered.get(i).getKey());
+            if (withScores) {
+                final double score = ordered.get(i).getValue();
+                reply.add(score == Math.rint(score) ? String.valueOf((long) score) : String.valueOf(score));
+            }
+        }
+        return reply;
+    }
+
+    private static int index(int index, int size) {
+        return index < 0 ? size + index : index;
+    }
+
+    private long publish(String channel, String message) {
+        final Set<NetSocket> sockets = subscribers.getOrDefault(channel, Set.of());
+        sockets.forEach(socket -> socket.write(encode(List.of("message", channel, message))));
+        return sockets.size();
+    }
+
+    private Object eval(List<String> args) {
+        final String key = args.get(3);
+        final String owner = args.get(4);
+        if (!owner.equals(get(key))) {
+            return 0L;
+        }
+        if (RefreshLeaderElection.RENEW_SCRIPT.equals(args.get(1))) {
+            return expireAt(key, System.currentTimeMillis() + Long.parseLong(args.get(5)));
+        }
+        if (RefreshLeaderElection.RELEASE_SCRIPT.equals(args.get(1))) {
+            data.remove(key);
+            return 1L;
+        }
+        return new ErrorReply("ERR unknown script");
+    }
+
+    private Object execute(List<String> command) {
+        final Function<List<String>, Object> handler = commands.get(command.get(0).toUpperCase());
+        if (handler == null) {
+            return new ErrorReply("ERR unknown command '" + command.get(0) + "'");
+        }
+        calls.merge(command.get(0).toUpperCase(), 1L, Long::sum);
+        try {
+            return handler.apply(command);
+        } catch (WrongType e) {
+            return new ErrorReply(WRONGTYPE);
+        }
+    }
+
+    /*
+     * MULTI / EXEC and SUBSCRIBE are per connection, everything else goes through the commands map.
+     */
+    private void handle(NetSocket socket) {
+        final Buffer[] pending = {Buffer.buffer()};
+        final AtomicReference<List<List<String>>> transaction = new AtomicReference<>();
+        socket.closeHandler(v -> {
+            synchronized (this) {
+                subscribers.values().forEach(sockets -> sockets.remove(socket));
+            }
+        });
+        socket.handler(chunk -> {
+            pending[0].appendBuffer(chunk);
+            int consumed = 0;
+            final int[] end = new int[1];
+            List<String> command;
+            while ((command = parse(pending[0], consumed, end)) != null) {
+                consumed = end[0];
+                final String name = command.get(0).toUpperCase();
+                final Object reply;
+                synchronized (this) {
+                    if ("MULTI".equals(name)) {
+                        transaction.set(new ArrayList<>());
+                        reply = new Status("OK");
+                    } else if ("EXEC".equals(name)) {
+                        final List<Object> replies = new ArrayList<>();
+                        if (transaction.get() != null) {
+                            transaction.get().forEach(queued -> replies.add(execute(queued)));
+                        }
+                        reply = transaction.get() == null ? new ErrorReply("ERR EXEC without MULTI") : replies;
+                        transaction.set(null);
+                    } else if (transaction.get() != null) {
+                        transaction.get().add(command);
+                        reply = new Status("QUEUED");
+                    } else if ("SUBSCRIBE".equals(name)) {
+                        final List<Object> confirmations = new ArrayList<>();
+                        for (String channel : command.subList(1, command.size())) {
+                            subscribers.computeIfAbsent(channel, key -> new CopyOnWriteArraySet<>()).add(socket);
+                            confirmations.add(List.of("subscribe", channel, (long) confirmations.size() + 1));
+                        }
+                        confirmations.forEach(confirmation -> socket.write(encode(confirmation)));
+                        continue;
+                    } else {
+                        reply = execute(command);
+                    }
+                }
+                socket.write(encode(reply));
+            }
+            pending[0] = pending[0].getBuffer(consumed, pending[0].length());
+        });
+    }
+
+    /**
+     * Parses one *N array of $ bulk strings starting at from, null if it is not complete yet.
+     */
+    private static List<String> parse(Buffer buffer, int from, int[] end) {
+        int position = from;
+        final int headerEnd = lineEnd(buffer, position);
+        if (headerEnd < 0) {
+            return null;
+        }
+        final int count = Integer.parseInt(buffer.getString(position + 1, headerEnd));
+        position = headerEnd + 2;
+        final List<String> arguments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final int lengthEnd = lineEnd(buffer, position);
+            if (lengthEnd < 0) {
+                return null;
+            }
+            final int length = Integer.parseInt(buffer.getString(position + 1, lengthEnd));
+            position = lengthEnd + 2;
+            if (buffer.length() < position + length + 2) {
+                return null;
+            }
+            arguments.add(buffer.getString(position, position + length, StandardCharsets.ISO_8859_1.name()));
+            position += length + 2;
+        }
+        end[0] = position;
+        return arguments;
+    }
+
+    private static int lineEnd(Buffer buffer, int from) {
+        for (int i = from; i + 1 < buffer.length(); i++) {
+            if (buffer.getByte(i) == '\r' && buffer.getByte(i + 1) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Buffer encode(Object reply) {
+        if (reply == null) {
+            return Buffer.buffer("$-1\r\n");
+        }
+        if (reply instanceof Status) {
+            return Buffer.buffer("+" + ((Status) reply).message + "\r\n");
+        }
+        if (reply instanceof ErrorReply) {
+            return Buffer.buffer("-" + ((ErrorReply) reply).message + "\r\n");
+        }
+        if (reply instanceof Long) {
+            return Buffer.buffer(":" + reply + "\r\n");
+        }
+        if (reply instanceof List) {
+            final Buffer array = Buffer.buffer("*" + ((List<?>) reply).size() + "\r\n");
+            ((List<?>) reply).forEach(element -> array.appendBuffer(encode(element)));
+            return array;
+        }
+        final byte[] bytes = reply.toString().getBytes(StandardCharsets.ISO_8859_1);
+        return Buffer.buffer("$" + bytes.length + "\r\n").appendBytes(bytes).appendString("\r\n");
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final long expiresAt;
+
+        private Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static class SortedSet {
+        private final Map<String, Double> scores = new HashMap<>();
+    }
+
+    private static class WrongType extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private static class Status {
+        private final String message;
+
+        private Status(String message) {
+            this.message = message;
+        }
+    }
+
+    private static class ErrorReply {
+        private final String message;
+
+        private ErrorReply(String message) {
+            this.message = message;
+        }
+    }
+}
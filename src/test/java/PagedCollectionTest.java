@@ -0,0 +1,40 @@
+import cache.RepoFixtures;
+import git.RepoPageParser;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import model.CachedResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import view.PagedCollection;
+
+import java.util.Set;
+
+public class PagedCollectionTest {
+
+    private final JsonArray repos = RepoFixtures.repos(45);
+    private final PagedCollection paged = PagedCollection.of(
+            new RepoPageParser(CachedResponse.isPrettyPrint()).parseArray(repos.toBuffer()));
+
+    @Test
+    void page_isASliceOfTheFullCollection() {
+        Assertions.assertEquals(repos.encodePrettily(), paged.getFull().getBody().toString());
+        Assertions.assertEquals(2, paged.lastPage(30));
+        Assertions.assertEquals(new JsonArray(repos.getList().subList(30, 45)), new JsonArray(paged.page(2, 30, Set.of()).getBody()));
+        Assertions.assertEquals(new JsonArray(repos.getList().subList(0, 10)).encodePrettily(), paged.page(1, 10, Set.of()).getBody().toString());
+        Assertions.assertEquals("[ ]", paged.page(3, 30, Set.of()).getBody().toString());
+        Assertions.assertSame(paged.page(2, 30, Set.of()), paged.page(2, 30, Set.of()));
+    }
+
+    @Test
+    void page_projectsTopLevelFields() {
+        JsonArray projected = new JsonArray(paged.page(1, 5, Set.of("full_name", "stargazers_count", "owner")).getBody());
+        Assertions.assertEquals(5, projected.size());
+        for (int i = 0; i < projected.size(); i++) {
+            JsonObject repo = repos.getJsonObject(i);
+            Assertions.assertEquals(new JsonObject()
+                    .put("full_name", repo.getString("full_name"))
+                    .put("owner", repo.getJsonObject("owner"))
+                    .put("stargazers_count", repo.getInteger("stargazers_count")), projected.getJsonObject(i));
+        }
+    }
+}
@@ -0,0 +1,53 @@
+import git.PaginatedFetcher;
+import git.UpstreamResponse;
+import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PaginatedFetcherTest {
+
+    private static final String LINK = "<https://api.github.com/organizations/913567/repos?per_page=100&page=2>; rel=\"next\", "
+            + "<https://api.github.com/organizations/913567/repos?per_page=100&page=3>; rel=\"last\"";
+
+    @Test
+    void lastPage_parsesLastRelation() {
+        Assertions.assertEquals(3, PaginatedFetcher.lastPage(LINK));
+        Assertions.assertEquals(1, PaginatedFetcher.lastPage(null));
+        Assertions.assertEquals(1, PaginatedFetcher.lastPage("<https://api.github.com/x?page=1>; rel=\"prev\""));
+    }
+
+    @Test
+    void fetchAll_assemblesEveryPageInOrder() {
+        PaginatedFetcher fetcher = new PaginatedFetcher((path, conditional) -> {
+            String page = path.substring(path.lastIndexOf('=') + 1);
+            return Future.succeededFuture(new UpstreamResponse(200, Buffer.buffer("[{\"page\":" + page + "}]"), LINK));
+        }, 2);
+
+        UpstreamResponse response = fetcher.fetchAll("/orgs/Netflix/repos", true).result();
+
+        Assertions.assertEquals(200, response.getStatusCode());
+        Assertions.assertEquals(new JsonArray("[{\"page\":1},{\"page\":2},{\"page\":3}]"), new JsonArray(response.getBody()));
+    }
+
+    @Test
+    void fetchAll_isNotModifiedOnlyWhenEveryPageIs() {
+        AtomicInteger calls = new AtomicInteger();
+        PaginatedFetcher fetcher = new PaginatedFetcher((path, conditional) -> Future.succeededFuture(
+                new UpstreamResponse(calls.incrementAndGet() == 3 ? 200 : 304, Buffer.buffer("[]"), LINK)), 1);
+
+        Assertions.assertEquals(200, fetcher.fetchAll("/orgs/Netflix/repos", true).result().getStatusCode());
+        Assertions.assertEquals(304, fetcher.fetchAll("/orgs/Netflix/repos", true).result().getStatusCode());
+    }
+
+    @Test
+    void fetchAll_failsWhenAPageFails() {
+        PaginatedFetcher fetcher = new PaginatedFetcher((path, conditional) -> Future.succeededFuture(
+                new UpstreamResponse(path.endsWith("page=2") ? 403 : 200, Buffer.buffer("[]"), LINK)), 4);
+
+        Assertions.assertTrue(fetcher.fetchAll("/orgs/Netflix/repos", true).failed());
+    }
+}
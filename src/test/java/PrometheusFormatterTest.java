@@ -0,0 +1,28 @@
+import com.codahale.metrics.MetricRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import utils.MetricsUtil;
+import utils.PrometheusFormatter;
+
+import java.util.concurrent.TimeUnit;
+
+public class PrometheusFormatterTest {
+
+    @Test
+    void format_groupsLabelledMetricsIntoOneFamily() {
+        MetricRegistry registry = new MetricRegistry();
+        registry.counter(MetricsUtil.name("github_responses", "status", "200")).inc(3);
+        registry.counter(MetricsUtil.name("github_responses", "status", "304")).inc();
+        registry.timer(MetricsUtil.name("redis_command_latency", "command", "get")).update(2, TimeUnit.MILLISECONDS);
+        registry.gauge("github_rate_limit_remaining", () -> () -> 4999L);
+
+        String text = PrometheusFormatter.format(registry);
+
+        Assertions.assertEquals(1, text.split("# TYPE github_responses_total counter", -1).length - 1);
+        Assertions.assertTrue(text.contains("github_responses_total{status=\"200\"} 3\n"));
+        Assertions.assertTrue(text.contains("github_responses_total{status=\"304\"} 1\n"));
+        Assertions.assertTrue(text.contains("redis_command_latency{command=\"get\",quantile=\"0.99\"} 0.002\n"));
+        Assertions.assertTrue(text.contains("redis_command_latency_count{command=\"get\"} 1\n"));
+        Assertions.assertTrue(text.contains("# TYPE github_rate_limit_remaining gauge\ngithub_rate_limit_remaining 4999\n"));
+    }
+}
@@ -0,0 +1,25 @@
+import cache.ProxyCachePolicy;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ProxyCachePolicyTest {
+
+    private final ProxyCachePolicy policy = ProxyCachePolicy.parse("/repos/**=300, /users/*=3600, /search/**=0", 60);
+
+    @Test
+    void ttlSeconds_firstMatchingPatternWins() {
+        Assertions.assertEquals(300, policy.ttlSeconds("/repos/Netflix/zuul/pulls"));
+        Assertions.assertEquals(3600, policy.ttlSeconds("/users/octocat"));
+        Assertions.assertEquals(60, policy.ttlSeconds("/users/octocat/repos"));
+        Assertions.assertEquals(0, policy.ttlSeconds("/search/repositories?q=zuul"));
+    }
+
+    @Test
+    void ttlSeconds_honorsUpstreamCacheControl() {
+        Assertions.assertEquals(60, policy.ttlSeconds("/repos/Netflix/zuul", "private, max-age=60, s-maxage=60"));
+        Assertions.assertEquals(30, policy.ttlSeconds("/repos/Netflix/zuul", "public, max-age=120, s-maxage=30"));
+        Assertions.assertEquals(300, policy.ttlSeconds("/repos/Netflix/zuul", "public"));
+        Assertions.assertEquals(0, policy.ttlSeconds("/repos/Netflix/zuul", "no-store"));
+        Assertions.assertEquals(0, policy.ttlSeconds("/search/code", "max-age=60"));
+    }
+}
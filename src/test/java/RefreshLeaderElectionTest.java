@@ -0,0 +1,93 @@
+import cache.RefreshLeaderElection;
+import io.vertx.core.Vertx;
+import io.vertx.redis.client.Redis;
+import io.vertx.redis.client.RedisAPI;
+import io.vertx.redis.client.RedisOptions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+public class RefreshLeaderElectionTest {
+
+    private static final long LEASE_MILLIS = 300;
+    private static final String LEADER_KEY = RefreshLeaderElection.leaderKey("Netflix");
+
+    private Vertx redisVertx;
+    private LocalRedisStandIn redis;
+    private String connectionString;
+
+    @BeforeEach
+    void startRedis() throws Exception {
+        redisVertx = Vertx.vertx();
+        redis = new LocalRedisStandIn(redisVertx);
+        connectionString = "redis://localhost:" + redis.start();
+    }
+
+    @AfterEach
+    void stopRedis() {
+        redisVertx.close();
+    }
+
+    @Test
+    void onlyOneNodeLeads_andAClosedLeaderIsReplaced() throws Exception {
+        Vertx vertx = Vertx.vertx();
+        RefreshLeaderElection first = election(vertx, "node-1");
+        RefreshLeaderElection second = election(vertx, "node-2");
+
+        await(() -> first.isLeader() || second.isLeader());
+        Thread.sleep(LEASE_MILLIS * 2); // several renew / acquire rounds
+        Assertions.assertTrue(first.isLeader() ^ second.isLeader());
+
+        RefreshLeaderElection leader = first.isLeader() ? first : second;
+        RefreshLeaderElection follower = first.isLeader() ? second : first;
+        onContext(vertx, leader::close);
+        await(follower::isLeader);
+        Assertions.assertFalse(leader.isLeader());
+        vertx.close();
+    }
+
+    @Test
+    void crashedLeaderIsReplacedOnceItsLeaseExpires() throws Exception {
+        Vertx crashing = Vertx.vertx();
+        RefreshLeaderElection first = election(crashing, "node-1");
+        await(first::isLeader);
+
+        Vertx survivor = Vertx.vertx();
+        RefreshLeaderElection second = election(survivor, "node-2");
+        crashing.close().toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS); // no release
+        Assertions.assertEquals("node-1", redis.get(LEADER_KEY));
+
+        await(second::isLeader);
+        Assertions.assertEquals("node-2", redis.get(LEADER_KEY));
+        survivor.close();
+    }
+
+    private RefreshLeaderElection election(Vertx vertx, String nodeId) throws Exception {
+        RedisAPI redisAPI = RedisAPI.api(Redis.createClient(vertx, new RedisOptions().setConnectionString(connectionString)));
+        RefreshLeaderElection election = new RefreshLeaderElection(vertx, redisAPI, LEADER_KEY, nodeId, LEASE_MILLIS, leader -> { });
+        onContext(vertx, election::start);
+        return election;
+    }
+
+    private static void onContext(Vertx vertx, Runnable action) throws Exception {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        vertx.runOnContext(v -> {
+            action.run();
+            done.complete(null);
+        });
+        done.get(5, TimeUnit.SECONDS);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            Assertions.assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+}
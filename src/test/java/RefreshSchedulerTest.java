@@ -0,0 +1,63 @@
+import cache.RefreshScheduler;
+import git.RateLimitState;
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class RefreshSchedulerTest {
+
+    @Test
+    void refreshNow_neverOverlapsAnInFlightRefresh() throws Exception {
+        Vertx vertx = Vertx.vertx();
+        AtomicInteger calls = new AtomicInteger();
+        AtomicReference<Promise<Boolean>> inFlight = new AtomicReference<>();
+        CompletableFuture<Integer> callsWhileInFlight = new CompletableFuture<>();
+
+        vertx.runOnContext(v -> {
+            RefreshScheduler scheduler = new RefreshScheduler(vertx, RateLimitState.get(vertx));
+            scheduler.add("/orgs/Netflix/repos", 60_000, () -> {
+                calls.incrementAndGet();
+                inFlight.set(Promise.promise());
+                return inFlight.get().future();
+            });
+            scheduler.start();
+            scheduler.refreshNow("/orgs/Netflix/repos");
+            scheduler.refreshNow("/orgs/Netflix/repos");
+            callsWhileInFlight.complete(calls.get());
+            inFlight.get().complete(Boolean.TRUE);
+            scheduler.refreshNow("/orgs/Netflix/repos");
+        });
+
+        Assertions.assertEquals(1, callsWhileInFlight.get(5, TimeUnit.SECONDS));
+        vertx.close().toCompletionStage().toCompletableFuture().get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(2, calls.get());
+    }
+
+    @Test
+    void paceMillis_spreadsTheBudgetAboveTheReserveUntilReset() {
+        Vertx vertx = Vertx.vertx();
+        RateLimitState state = RateLimitState.get(vertx);
+        long now = 1_700_000_000_000L;
+        Assertions.assertEquals(0, state.paceMillis(4, now));
+
+        state.update(MultiMap.caseInsensitiveMultiMap()
+                .add("X-RateLimit-Limit", "5000")
+                .add("X-RateLimit-Remaining", String.valueOf(RateLimitState.RESERVE + 400))
+                .add("X-RateLimit-Reset", String.valueOf(now / 1000 + 3600)));
+        Assertions.assertEquals(3600_000L * 4 / 400, state.paceMillis(4, now));
+
+        state.update(MultiMap.caseInsensitiveMultiMap()
+                .add("X-RateLimit-Remaining", "12")
+                .add("X-RateLimit-Reset", String.valueOf(now / 1000 + 60)));
+        Assertions.assertEquals(60_000L, state.paceMillis(4, now));
+        vertx.close();
+    }
+}
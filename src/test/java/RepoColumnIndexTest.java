@@ -0,0 +1,56 @@
+import git.RepoPageParser;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import utils.CustomViewsUtil.VIEW_COLUMNS;
+import view.RepoColumnIndex;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+public class RepoColumnIndexTest {
+
+    private final RepoColumnIndex index = RepoColumnIndex.build(new RepoPageParser(false).parseArray(new JsonArray()
+            .add(repo("Netflix/a", 5, "Java"))
+            .add(repo("Netflix/b", 0, "Java"))
+            .add(repo("Netflix/c", 0, "Go"))
+            .add(repo("Netflix/d", 1, null))
+            .add(repo("Netflix/e", 0, "Java"))
+            .add(repo("Netflix/f", 9, "java")).toBuffer()));
+
+    @Test
+    void bottomN_isTailOfValueDescNameAsc() {
+        Assertions.assertEquals("Netflix/d,Netflix/b,Netflix/c,Netflix/e", names(index.select(VIEW_COLUMNS.forks, 4, false, row -> true)));
+        Assertions.assertEquals("Netflix/c,Netflix/e", names(index.select(VIEW_COLUMNS.forks, 2, false, row -> true)));
+    }
+
+    @Test
+    void topN_isHeadOfValueDescNameAsc() {
+        Assertions.assertEquals("Netflix/f,Netflix/a,Netflix/d", names(index.select(VIEW_COLUMNS.forks, 3, true, row -> true)));
+        Assertions.assertEquals(6, index.select(VIEW_COLUMNS.forks, 100, true, row -> true).length);
+    }
+
+    @Test
+    void filters_applyBeforeSelection() {
+        Assertions.assertEquals("Netflix/f,Netflix/a", names(index.select(VIEW_COLUMNS.forks, 2, true, index.languageEquals("JAVA"))));
+        Assertions.assertEquals("Netflix/a,Netflix/d", names(index.select(VIEW_COLUMNS.forks, 2, false, index.valueAtLeast(VIEW_COLUMNS.forks, 1).and(index.valueAtMost(VIEW_COLUMNS.forks, 5)))));
+        Assertions.assertEquals(0, index.select(VIEW_COLUMNS.forks, 2, true, index.languageEquals("Rust")).length);
+    }
+
+    private String names(int[] rows) {
+        return Arrays.stream(rows).mapToObj(index::fullName).collect(Collectors.joining(","));
+    }
+
+    private static JsonObject repo(String fullName, int forks, String language) {
+        return new JsonObject()
+                .put("full_name", fullName)
+                .put("forks", forks)
+                .put("stargazers_count", 0)
+                .put("watchers_count", 0)
+                .put("size", 0)
+                .put("open_issues", 0)
+                .put("updated_at", "2022-03-29T16:25:56Z")
+                .put("language", language);
+    }
+}
@@ -0,0 +1,52 @@
+import cache.RepoFixtures;
+import git.RepoPageParser;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import model.RepoRecord;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+public class RepoPageParserTest {
+
+    @Test
+    void parseArray_picksTopLevelFields_andRendersLikeEncode() {
+        JsonArray repos = RepoFixtures.repos(30);
+        Buffer page = Buffer.buffer(repos.encodePrettily());
+
+        List<RepoRecord> pretty = new RepoPageParser(true).parseArray(page);
+        List<RepoRecord> compact = new RepoPageParser(false).parseArray(page);
+
+        Assertions.assertEquals(repos.size(), pretty.size());
+        for (int i = 0; i < repos.size(); i++) {
+            JsonObject repo = repos.getJsonObject(i);
+            RepoRecord record = pretty.get(i);
+            Assertions.assertEquals(repo.getLong("id"), record.getId());
+            Assertions.assertEquals(repo.getString("full_name"), record.getFullName());
+            Assertions.assertEquals(repo.getString("language"), record.getLanguage());
+            Assertions.assertEquals(repo.getLong("forks"), record.getForks());
+            Assertions.assertEquals(repo.getLong("open_issues"), record.getOpenIssues());
+            Assertions.assertEquals(repo.getLong("stargazers_count"), record.getStars());
+            Assertions.assertEquals(repo.getLong("watchers_count"), record.getWatchers());
+            Assertions.assertEquals(repo.getLong("size"), record.getSize());
+            Assertions.assertEquals(Instant.parse(repo.getString("updated_at")).toEpochMilli(), record.getUpdatedAt());
+            Assertions.assertEquals(repo, new JsonObject(record.getRaw()));
+            Assertions.assertEquals(repo.encodePrettily(), record.getRendered().toString());
+            Assertions.assertEquals(repo.encode(), compact.get(i).getRendered().toString());
+        }
+        Assertions.assertEquals(repos.encodePrettily(), join(pretty, "[ ", ", ", " ]"));
+        Assertions.assertEquals(repos.encode(), join(compact, "[", ",", "]"));
+        Assertions.assertTrue(new RepoPageParser(true).parseArray(Buffer.buffer(" [ ] ")).isEmpty());
+    }
+
+    private static String join(List<RepoRecord> records, String open, String separator, String close) {
+        StringBuilder joined = new StringBuilder(open);
+        for (int i = 0; i < records.size(); i++) {
+            joined.append(i > 0 ? separator : "").append(records.get(i).getRendered());
+        }
+        return joined.append(close).toString();
+    }
+}
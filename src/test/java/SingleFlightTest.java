@@ -0,0 +1,109 @@
+import cache.SingleFlight;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SingleFlightTest {
+
+    @Test
+    void execute_sharesTheInFlightCallPerKey() {
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+        AtomicInteger calls = new AtomicInteger();
+        Promise<String> upstream = Promise.promise();
+
+        Future<String> first = singleFlight.execute("/orgs/Netflix", () -> {
+            calls.incrementAndGet();
+            return upstream.future();
+        });
+        Future<String> second = singleFlight.execute("/orgs/Netflix", () -> {
+            calls.incrementAndGet();
+            return Future.succeededFuture("other");
+        });
+        Future<String> otherKey = singleFlight.execute("/orgs/Netflix/members", () -> {
+            calls.incrementAndGet();
+            return Future.succeededFuture("members");
+        });
+        upstream.complete("netflix");
+
+        Assertions.assertEquals(2, calls.get());
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals("netflix", second.result());
+        Assertions.assertEquals("members", otherKey.result());
+        Assertions.assertEquals(0, singleFlight.inFlight());
+    }
+
+    @Test
+    void execute_releasesTheKeyAfterAFailure() {
+        SingleFlight<String> singleFlight = new SingleFlight<>();
+
+        Future<String> failed = singleFlight.execute("/orgs/Netflix", () -> Future.failedFuture("rate limited"));
+        Future<String> retried = singleFlight.execute("/orgs/Netflix", () -> Future.succeededFuture("netflix"));
+
+        Assertions.assertTrue(failed.failed());
+        Assertions.assertEquals("netflix", retried.result());
+    }
+
+    @Test
+    void get_sharesTheCallAcrossContexts_andCompletesEachCallerOnItsOwn() throws Exception {
+        Vertx vertx = Vertx.vertx();
+        try {
+            Context first = deployedContext(vertx);
+            Context second = deployedContext(vertx);
+            Assertions.assertNotSame(first, second);
+            AtomicInteger calls = new AtomicInteger();
+            Promise<String> upstream = Promise.promise();
+            CompletableFuture<Context> firstCompletedOn = new CompletableFuture<>();
+            CompletableFuture<Context> secondCompletedOn = new CompletableFuture<>();
+
+            CompletableFuture<Void> started = new CompletableFuture<>();
+            first.runOnContext(v -> {
+                SingleFlight.<String>get(vertx, "test").execute("/orgs/Netflix", () -> {
+                    calls.incrementAndGet();
+                    return upstream.future();
+                }).onComplete(result -> firstCompletedOn.complete(Vertx.currentContext()));
+                started.complete(null);
+            });
+            started.get(5, TimeUnit.SECONDS);
+            CompletableFuture<Void> joined = new CompletableFuture<>();
+            second.runOnContext(v -> {
+                SingleFlight.<String>get(vertx, "test").execute("/orgs/Netflix", () -> {
+                    calls.incrementAndGet();
+                    return Future.succeededFuture("other");
+                }).onSuccess(result -> {
+                    Assertions.assertEquals("netflix", result);
+                    secondCompletedOn.complete(Vertx.currentContext());
+                });
+                joined.complete(null);
+            });
+            joined.get(5, TimeUnit.SECONDS);
+            first.runOnContext(v -> upstream.complete("netflix"));
+
+            Assertions.assertSame(first, firstCompletedOn.get(5, TimeUnit.SECONDS));
+            Assertions.assertSame(second, secondCompletedOn.get(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(1, calls.get());
+            Assertions.assertEquals(0, SingleFlight.get(vertx, "test").inFlight());
+        } finally {
+            vertx.close();
+        }
+    }
+
+    // the context of a verticle, i.e. its own event loop
+    private static Context deployedContext(Vertx vertx) throws Exception {
+        CompletableFuture<Context> deployed = new CompletableFuture<>();
+        vertx.deployVerticle(new AbstractVerticle() {
+            @Override
+            public void start() {
+                deployed.complete(context);
+            }
+        });
+        return deployed.get(5, TimeUnit.SECONDS);
+    }
+}
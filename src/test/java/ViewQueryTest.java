@@ -0,0 +1,29 @@
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import utils.CustomViewsUtil.CUSTOM_VIEWS;
+import view.ViewQuery;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class ViewQueryTest {
+
+    @Test
+    void parseBatch_normalizesAndRejectsMalformedViews() {
+        List<ViewQuery> queries = ViewQuery.parseBatch("Netflix", " bottom:5:stars,top:3:watchers,bottom:5:stars,,bottom:10:forks");
+        Assertions.assertEquals("bottom:5:stars,top:3:watchers,bottom:10:forks", ViewQuery.toBatch(queries));
+        Assertions.assertEquals("/orgs/Netflix/view/bottom/5/stars", queries.get(0).path());
+        Assertions.assertEquals("/orgs/Netflix/view/batch?q=bottom:5:stars,top:3:watchers,bottom:10:forks", ViewQuery.batchKey(queries));
+        Assertions.assertEquals(ViewQuery.toBatch(queries), ViewQuery.toBatch(ViewQuery.fromBatchKey(ViewQuery.batchKey(queries))));
+        Assertions.assertEquals(CUSTOM_VIEWS.stars, queries.get(0).leaderBoard());
+        Assertions.assertNull(queries.get(1).leaderBoard());
+
+        for (String q : List.of("", ",", "bottom:5", "sideways:5:stars", "bottom:five:stars", "bottom:5:name")) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> ViewQuery.parseBatch("Netflix", q), q);
+        }
+        String tooMany = IntStream.rangeClosed(1, ViewQuery.MAX_BATCH_SIZE + 1).mapToObj(n -> "bottom:" + n + ":stars")
+                .collect(Collectors.joining(","));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ViewQuery.parseBatch("Netflix", tooMany));
+    }
+}
@@ -0,0 +1,77 @@
+package cache;
+
+import git.RepoPageParser;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.redis.client.Response;
+import io.vertx.redis.client.impl.types.BulkType;
+import io.vertx.redis.client.impl.types.MultiType;
+import io.vertx.redis.client.impl.types.NumberType;
+import model.LeaderBoardEntryItem;
+import model.LeaderBoardOutputItem;
+import model.RepoRecord;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static utils.CustomViewsUtil.CUSTOM_VIEWS.stars;
+
+public class LeaderBoardViewTest {
+
+    private static final String ORG = "Netflix";
+
+    @Test
+    void getAsList_readsResp2AndResp3Replies_highestValueFirst_tiesByName() {
+        JsonArray repos = RepoFixtures.repos(ORG, 6);
+        int[] starCounts = {5, 9, 5, 1, 9, 5};
+        for (int i = 0; i < starCounts.length; i++) {
+            repos.getJsonObject(i).put("stargazers_count", starCounts[i]);
+        }
+        List<LeaderBoardEntryItem> bottom4 = zrange(new RepoPageParser(false).parseArray(repos.toBuffer()), 4);
+
+        List<LeaderBoardOutputItem> expected = List.of(
+                new LeaderBoardOutputItem(ORG + "/repo-0", 5),
+                new LeaderBoardOutputItem(ORG + "/repo-2", 5),
+                new LeaderBoardOutputItem(ORG + "/repo-5", 5),
+                new LeaderBoardOutputItem(ORG + "/repo-3", 1));
+        Assertions.assertEquals(expected, RedisClientManager.getAsList(stars, resp2(bottom4)));
+        Assertions.assertEquals(expected, RedisClientManager.getAsList(stars, resp3(bottom4)));
+    }
+
+    /*
+     * ZRANGE key -N -1: the set ordered like Redis does (score, then member), its last N entries.
+     */
+    private static List<LeaderBoardEntryItem> zrange(List<RepoRecord> repos, int n) {
+        List<LeaderBoardEntryItem> ordered = repos.stream()
+                .map(repo -> LeaderBoardBuilder.getLeaderBoardItem(repo, stars, ORG))
+                .sorted(Comparator.<LeaderBoardEntryItem>comparingDouble(item -> Double.parseDouble(item.getScore()))
+                        .thenComparing(LeaderBoardEntryItem::getKey))
+                .collect(Collectors.toList());
+        return ordered.subList(ordered.size() - n, ordered.size());
+    }
+
+    // flat [member, score, ...]
+    private static Response resp2(List<LeaderBoardEntryItem> items) {
+        MultiType reply = MultiType.create(items.size() * 2L, false);
+        for (LeaderBoardEntryItem item : items) {
+            reply.add(BulkType.create(Buffer.buffer(item.getKey()), false));
+            reply.add(BulkType.create(Buffer.buffer(item.getScore()), false));
+        }
+        return reply;
+    }
+
+    // [[member, score], ...] with double scores
+    private static Response resp3(List<LeaderBoardEntryItem> items) {
+        MultiType reply = MultiType.create(items.size(), false);
+        for (LeaderBoardEntryItem item : items) {
+            MultiType pair = MultiType.create(2, false);
+            pair.add(BulkType.create(Buffer.buffer(item.getKey()), false));
+            pair.add(NumberType.create(Double.parseDouble(item.getScore())));
+            reply.add(pair);
+        }
+        return reply;
+    }
+}
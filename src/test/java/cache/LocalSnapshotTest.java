@@ -0,0 +1,39 @@
+package cache;
+
+import model.CachedResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class LocalSnapshotTest {
+
+    @Test
+    void read_restoresWhatWasWritten_andIgnoresACorruptFile(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("cache.snapshot");
+        Map<String, CachedResponse> entries = new LinkedHashMap<>();
+        entries.put("/orgs/Netflix", CachedResponse.ofJsonObject("{\"login\":\"Netflix\"}"));
+        entries.put("/orgs/Netflix/repos", CachedResponse.ofJsonArray(RepoFixtures.repos(20)));
+        LocalSnapshot.write(file, entries, 1_700_000_000_000L);
+
+        LocalSnapshot snapshot = new LocalSnapshot(file, 60);
+        Map<String, CachedResponse> loaded = snapshot.read(file);
+        Assertions.assertEquals(entries.keySet(), loaded.keySet());
+        entries.forEach((path, response) -> {
+            Assertions.assertTrue(response.sameContentAs(loaded.get(path)));
+            Assertions.assertEquals(response.getLastModified(), loaded.get(path).getLastModified());
+            Assertions.assertEquals(response.getBody(), loaded.get(path).getBody());
+        });
+        Assertions.assertEquals(1000, snapshot.loadedAgeMillis(1_700_000_001_000L));
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+        Assertions.assertTrue(new LocalSnapshot(file, 60).read(file).isEmpty());
+        Assertions.assertTrue(new LocalSnapshot(file, 60).read(dir.resolve("missing")).isEmpty());
+    }
+}
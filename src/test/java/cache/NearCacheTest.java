@@ -0,0 +1,44 @@
+package cache;
+
+import model.CachedResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class NearCacheTest {
+
+    private final NearCache nearCache = new NearCache(1024 * 1024, 3600);
+
+    @Test
+    void get_servesStaleEntriesUntilStaleUntil() {
+        long now = System.currentTimeMillis();
+        CachedResponse org = CachedResponse.ofJsonObject("{\"login\":\"Netflix\"}");
+
+        nearCache.put("/orgs/Netflix", nearCache.withFreshness(org));
+        Assertions.assertTrue(nearCache.get("/orgs/Netflix").isFresh(now));
+
+        nearCache.put("/orgs/Netflix", org.withFreshness(now - 1, now + 60_000));
+        Assertions.assertFalse(nearCache.get("/orgs/Netflix").isFresh(now));
+        CachedResponse extended = nearCache.extendStaleness(nearCache.get("/orgs/Netflix"));
+        Assertions.assertTrue(extended.isUsable(now + 3_000_000));
+        Assertions.assertEquals(org.getEtag(), extended.getEtag());
+
+        nearCache.put("/orgs/Netflix", org.withFreshness(now - 2, now - 1));
+        Assertions.assertNull(nearCache.get("/orgs/Netflix"));
+    }
+
+    @Test
+    void put_keepsTheCachedEtagWithTheNewWindow_andViewsAreNeverStale() {
+        long now = System.currentTimeMillis();
+        CachedResponse first = CachedResponse.ofJsonObject("{\"login\":\"Netflix\"}").withFreshness(now - 1, now + 60_000);
+        Assertions.assertTrue(nearCache.put("/orgs/Netflix", first));
+        CachedResponse again = CachedResponse.of(first.getBody(), first.getLastModified() + 1000);
+        Assertions.assertFalse(nearCache.put("/orgs/Netflix", nearCache.withFreshness(again)));
+        Assertions.assertEquals(first.getLastModified(), nearCache.get("/orgs/Netflix").getLastModified());
+        Assertions.assertTrue(nearCache.get("/orgs/Netflix").isFresh(now));
+
+        nearCache.put("/orgs/Netflix/view/bottom/5/stars", CachedResponse.of("[]"));
+        CachedResponse view = nearCache.get("/orgs/Netflix/view/bottom/5/stars");
+        Assertions.assertEquals(view.getFreshUntil(), view.getStaleUntil());
+        Assertions.assertTrue(view.isFresh(now));
+    }
+}
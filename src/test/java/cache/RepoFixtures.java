@@ -0,0 +1,78 @@
+package cache;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.time.Instant;
+import java.util.Random;
+
+/**
+ * Deterministic /orgs/{org}/repos payloads shaped like the GitHub response (the fields the caches and views read
+ * plus the urls and owner block that make up most of the bytes), so every run benchmarks the same data.
+ * Shared by the JMH benchmarks (src/jmh/java) and FakeGitHubServer.
+ */
+public class RepoFixtures {
+
+    private static final String[] LANGUAGES = {"Java", "Python", "Go", "JavaScript", "Kotlin", "Shell", null};
+    private static final long START_EPOCH_MILLIS = Instant.parse("2012-01-01T00:00:00Z").toEpochMilli();
+    private static final long SPAN_MILLIS = Instant.parse("2023-11-01T00:00:00Z").toEpochMilli() - START_EPOCH_MILLIS;
+
+    public static JsonArray repos(int count) {
+        return repos("Netflix", count);
+    }
+
+    public static JsonArray repos(String org, int count) {
+        final Random random = new Random(count);
+        final JsonArray repos = new JsonArray();
+        for (int i = 0; i < count; i++) {
+            final String name = "repo-" + i;
+            final String fullName = org + "/" + name;
+            final String url = "https://api.github.com/repos/" + fullName;
+            // long tailed like the real org: most repos have a handful of forks and stars, a few have thousands
+            final int stars = (int) Math.min(50_000, Math.exp(random.nextDouble() * 10));
+            repos.add(new JsonObject()
+                    .put("id", 2_000_000L + i)
+                    .put("node_id", "MDEwOlJlcG9zaXRvcnk" + i)
+                    .put("name", name)
+                    .put("full_name", fullName)
+                    .put("private", false)
+                    .put("owner", new JsonObject()
+                            .put("login", org)
+                            .put("id", 913567)
+                            .put("avatar_url", "https://avatars.githubusercontent.com/u/913567?v=4")
+                            .put("url", "https://api.github.com/users/" + org)
+                            .put("html_url", "https://github.com/" + org)
+                            .put("type", "Organization")
+                            .put("site_admin", false))
+                    .put("html_url", "https://github.com/" + fullName)
+                    .put("description", org + " OSS project " + i + ", a reasonably long description of what the repository holds")
+                    .put("fork", random.nextInt(10) == 0)
+                    .put("url", url)
+                    .put("forks_url", url + "/forks")
+                    .put("issues_url", url + "/issues{/number}")
+                    .put("pulls_url", url + "/pulls{/number}")
+                    .put("releases_url", url + "/releases{/id}")
+                    .put("created_at", Instant.ofEpochMilli(START_EPOCH_MILLIS + (long) (random.nextDouble() * SPAN_MILLIS / 2)).toString())
+                    .put("updated_at", Instant.ofEpochMilli(START_EPOCH_MILLIS + (long) (random.nextDouble() * SPAN_MILLIS)).toString())
+                    .put("pushed_at", Instant.ofEpochMilli(START_EPOCH_MILLIS + (long) (random.nextDouble() * SPAN_MILLIS)).toString())
+                    .put("homepage", random.nextBoolean() ? "https://netflix.github.io/" + name : null)
+                    .put("size", random.nextInt(200_000))
+                    .put("stargazers_count", stars)
+                    .put("watchers_count", stars)
+                    .put("language", LANGUAGES[random.nextInt(LANGUAGES.length)])
+                    .put("has_issues", true)
+                    .put("has_wiki", random.nextBoolean())
+                    .put("forks_count", stars / 5)
+                    .put("archived", random.nextInt(8) == 0)
+                    .put("open_issues_count", random.nextInt(50))
+                    .put("license", new JsonObject().put("key", "apache-2.0").put("name", "Apache License 2.0"))
+                    .put("topics", new JsonArray().add("netflixoss").add("java"))
+                    .put("visibility", "public")
+                    .put("forks", stars / 5)
+                    .put("open_issues", random.nextInt(50))
+                    .put("watchers", stars)
+                    .put("default_branch", "master"));
+        }
+        return repos;
+    }
+}
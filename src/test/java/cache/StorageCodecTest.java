@@ -0,0 +1,58 @@
+package cache;
+
+import io.vertx.core.buffer.Buffer;
+import model.CachedResponse;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import utils.CompressionUtil;
+
+public class StorageCodecTest {
+
+    private static final Buffer ORG = Buffer.buffer("{\"login\":\"Netflix\",\"public_repos\":42}");
+
+    @Test
+    void encode_roundTripsValuesAndResponses_withEitherCodec() {
+        CachedResponse org = CachedResponse.of(ORG, 1_000L);
+        for (StorageCodec codec : StorageCodec.values()) {
+            Buffer stored = codec.encode(ORG);
+            Assertions.assertEquals(codec == StorageCodec.gzip, CompressionUtil.isGzip(stored));
+            Assertions.assertEquals(ORG, codec.decode(stored));
+
+            CachedResponse restored = codec.decode(codec.encode(org), org.getEtag(), org.getLastModified());
+            Assertions.assertEquals(ORG, restored.getBody());
+            Assertions.assertEquals(org.getEtag(), restored.getEtag());
+            Assertions.assertEquals(1_000L, restored.getLastModified());
+        }
+        Assertions.assertSame(org.getGzipBody(), StorageCodec.gzip.encode(org)); // stored as served, not recompressed
+    }
+
+    @Test
+    void decode_readsValuesWrittenUncompressed() {
+        Assertions.assertEquals(ORG, StorageCodec.gzip.decode(ORG.copy()));
+
+        CachedResponse legacy = StorageCodec.gzip.decode(ORG.copy(), "\"etag\"", 1_000L);
+        Assertions.assertEquals(ORG, legacy.getBody());
+        Assertions.assertTrue(CompressionUtil.isGzip(legacy.getGzipBody()));
+        Assertions.assertEquals("\"etag\"", legacy.getEtag());
+    }
+
+    @Test
+    void named_defaultsToGzip() {
+        Assertions.assertEquals(StorageCodec.gzip, StorageCodec.named(null));
+        Assertions.assertEquals(StorageCodec.gzip, StorageCodec.named(" "));
+        Assertions.assertEquals(StorageCodec.identity, StorageCodec.named(" Identity "));
+        Assertions.assertEquals(StorageCodec.gzip, StorageCodec.named("GZIP"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> StorageCodec.named("zstd"));
+    }
+
+    @Test
+    void compressionUtil_roundTripsAndOnlyFlagsTheGzipMagic() {
+        Buffer compressed = CompressionUtil.gzip(ORG);
+        Assertions.assertTrue(CompressionUtil.isGzip(compressed));
+        Assertions.assertEquals(ORG, CompressionUtil.gunzip(compressed));
+        Assertions.assertEquals(Buffer.buffer(), CompressionUtil.gunzip(CompressionUtil.gzip(Buffer.buffer())));
+        Assertions.assertFalse(CompressionUtil.isGzip(Buffer.buffer()));
+        Assertions.assertFalse(CompressionUtil.isGzip(Buffer.buffer(new byte[]{0x1f})));
+        Assertions.assertFalse(CompressionUtil.isGzip(ORG));
+    }
+}